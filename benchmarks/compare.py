@@ -0,0 +1,91 @@
+#!/usr/bin/env python3
+"""Compare deux résultats JMH (-rf json, avec -prof gc) et signale les régressions.
+
+Usage : compare.py baseline/results.json target/results.json [--threshold 10] [--alloc-threshold 16]
+
+Régression de débit : médiane des itérations mesurées (toutes fourches confondues, rawData) en baisse
+de plus de --threshold %. La médiane résiste aux itérations aberrantes sans dépendre de la largeur des
+intervalles d'erreur, trop larges avec peu de fourches pour jamais être disjoints.
+Régression d'allocation : gc.alloc.rate.norm en hausse de plus de --threshold % ET de plus de
+--alloc-threshold octets par opération.
+Code retour 1 si au moins une régression est détectée.
+"""
+import argparse
+import json
+import statistics
+import sys
+
+ALLOC_METRIC = "gc.alloc.rate.norm"
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for run in json.load(f):
+            params = run.get("params") or {}
+            key = run["benchmark"].rsplit(".", 2)[-2] + "." + run["benchmark"].rsplit(".", 1)[-1]
+            if params:
+                key += "[" + ",".join(f"{k}={v}" for k, v in sorted(params.items())) + "]"
+            primary = run["primaryMetric"]
+            alloc = (run.get("secondaryMetrics") or {}).get(ALLOC_METRIC)
+            raw = [value for fork in primary.get("rawData") or [] for value in fork]
+            results[key] = {
+                # Sans données brutes (résultat tronqué), repli sur le score moyen
+                "median": statistics.median(raw) if raw else primary["score"],
+                "unit": primary["scoreUnit"],
+                "alloc": alloc["score"] if alloc else None,
+            }
+        return results
+
+
+def relative(current, baseline):
+    return (current - baseline) / baseline * 100 if baseline else 0.0
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Compare deux résultats JMH et signale les régressions.")
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0, help="écart toléré en %% (défaut 10)")
+    parser.add_argument("--alloc-threshold", type=float, default=16.0,
+                        help="hausse d'allocation tolérée en octets/op (défaut 16)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+    regressions = 0
+
+    print(f"{'Benchmark (médianes)':<45} {'référence':>14} {'actuel':>14} {'écart':>8}   {'B/op réf.':>10} {'B/op':>10}  verdict")
+    for key in sorted(baseline.keys() | current.keys()):
+        base, cur = baseline.get(key), current.get(key)
+        if base is None or cur is None:
+            print(f"{key:<45} {'absent de la référence' if base is None else 'absent des résultats actuels'}")
+            continue
+
+        verdicts = []
+        delta = relative(cur["median"], base["median"])
+        if delta < -args.threshold:
+            verdicts.append("DÉBIT")
+        alloc_base, alloc_cur = base["alloc"], cur["alloc"]
+        if alloc_base is not None and alloc_cur is not None:
+            if (alloc_cur - alloc_base > args.alloc_threshold
+                    and relative(alloc_cur, max(alloc_base, 1.0)) > args.threshold):
+                verdicts.append("ALLOCATION")
+        regressions += bool(verdicts)
+
+        def fmt_alloc(value):
+            return f"{value:10.1f}" if value is not None else f"{'-':>10}"
+
+        print(f"{key:<45} {base['median']:14.1f} {cur['median']:14.1f} {delta:+7.1f}%   "
+              f"{fmt_alloc(alloc_base)} {fmt_alloc(alloc_cur)}  "
+              f"{'RÉGRESSION ' + '+'.join(verdicts) if verdicts else 'ok'}")
+
+    if regressions:
+        print(f"\n{regressions} benchmark(s) en régression.")
+        return 1
+    print("\nAucune régression.")
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,80 @@
+package org.example.benchmarks;
+
+import org.example.businessLogic.IsoMessageBuilder;
+import org.example.network.FrameCodec;
+import org.example.util.PackagerRegistry;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Découpage du flux reçu en trames, comme {@code NioConnection.onReadable} : un tampon direct
+ * contenant {@value #FRAMES} trames consécutives, chaque trame recopiée dans un tableau réutilisé,
+ * puis éventuellement unpackée comme le fait {@code MessageDispatcher}. Résultats par trame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class FrameDecodeBenchmark {
+    private static final int FRAMES = 64;
+
+    private final FrameCodec codec = FrameCodec.getDefault();
+    private ByteBuffer stream;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] encoded = codec.encode(IsoMessageBuilder.createAuthRequest(TemplateData.templateFields()).pack());
+        stream = ByteBuffer.allocateDirect(encoded.length * FRAMES);
+        for (int i = 0; i < FRAMES; i++) {
+            stream.put(encoded);
+        }
+        frame = new byte[encoded.length];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void decodeFrames(Blackhole blackhole) {
+        int position = 0;
+        int headerLength = codec.getHeaderLength();
+        while (position + headerLength <= stream.limit()) {
+            int length = codec.readHeader(stream, position);
+            stream.get(position + headerLength, frame, 0, length);
+            position += headerLength + length;
+            blackhole.consume(frame);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void decodeAndUnpackFrames(Blackhole blackhole) throws ISOException {
+        int position = 0;
+        int headerLength = codec.getHeaderLength();
+        while (position + headerLength <= stream.limit()) {
+            int length = codec.readHeader(stream, position);
+            stream.get(position + headerLength, frame, 0, length);
+            position += headerLength + length;
+            ISOMsg msg = new ISOMsg();
+            msg.setPackager(PackagerRegistry.iso87());
+            msg.unpack(frame);
+            blackhole.consume(msg);
+        }
+    }
+}
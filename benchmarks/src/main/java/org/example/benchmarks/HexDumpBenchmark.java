@@ -0,0 +1,61 @@
+package org.example.benchmarks;
+
+import org.example.businessLogic.IsoMessageBuilder;
+import org.example.util.HexUtil;
+import org.example.util.IsoMessagePrinter;
+import org.jpos.iso.ISOMsg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatage des traces : dump hexadécimal de la trame et affichage champ par champ (niveau FULL).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class HexDumpBenchmark {
+    private final StringBuilder sb = new StringBuilder(4096);
+    private ISOMsg msg;
+    private byte[] packed;
+
+    @Setup
+    public void setUp() throws Exception {
+        msg = IsoMessageBuilder.createAuthRequest(TemplateData.templateFields());
+        packed = msg.pack();
+    }
+
+    @Benchmark
+    public String bytesToHex() {
+        return HexUtil.bytesToHex(packed);
+    }
+
+    /**
+     * Hex ajouté à un tampon réutilisé, comme le fait l'écrivain de traces.
+     */
+    @Benchmark
+    public StringBuilder appendHex() {
+        sb.setLength(0);
+        HexUtil.appendHex(sb, packed, 0, packed.length);
+        return sb;
+    }
+
+    @Benchmark
+    public StringBuilder appendIsoMessage() {
+        sb.setLength(0);
+        IsoMessagePrinter.appendISOMessage(sb, msg, packed, packed.length);
+        return sb;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.benchmarks;
+
+import org.example.businessLogic.AuthRequestTemplate;
+import org.example.businessLogic.IsoMessageBuilder;
+import org.example.util.PackagerRegistry;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction et pack de la 0100 par les trois chemins du client, et unpack de la même demande.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class PackBenchmark {
+    private String[] fields;
+    private AuthRequestTemplate template;
+    private byte[] packed;
+    private byte[] buffer;
+    private int stan;
+
+    @Setup
+    public void setUp() throws Exception {
+        fields = TemplateData.templateFields();
+        template = new AuthRequestTemplate(fields);
+        packed = IsoMessageBuilder.createAuthRequest(fields).pack();
+        buffer = new byte[template.getPackedLength()];
+    }
+
+    /**
+     * Message reconstruit champ par champ depuis le CSV, puis packé.
+     */
+    @Benchmark
+    public byte[] buildAndPack() throws Exception {
+        return IsoMessageBuilder.createAuthRequest(fields).pack();
+    }
+
+    /**
+     * Copie du gabarit avec STAN et référence, puis packée (mode continu et jeux de données).
+     */
+    @Benchmark
+    public byte[] templateCopyAndPack() throws ISOException {
+        stan = stan % 999_999 + 1;
+        return template.newRequest(String.format("%06d", stan), String.format("%012d", stan)).pack();
+    }
+
+    /**
+     * Chemin rapide du générateur de charge : image packée recopiée et patchée en place.
+     */
+    @Benchmark
+    public byte[] writePacked() {
+        stan = stan % 999_999 + 1;
+        template.writePacked(buffer, 0, stan, stan);
+        return buffer;
+    }
+
+    @Benchmark
+    public ISOMsg unpack() throws ISOException {
+        ISOMsg msg = new ISOMsg();
+        msg.setPackager(PackagerRegistry.iso87());
+        msg.unpack(packed);
+        return msg;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.benchmarks;
+
+import org.example.util.CsvParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Champs de la demande 0100 du template livré avec le client ({@code auth_template.txt}, lu dans le classpath) :
+ * toutes les mesures portent sur le même message que le mode charge.
+ */
+final class TemplateData {
+    private static final String TEMPLATE_RESOURCE = "/auth_template.txt";
+
+    private TemplateData() {
+    }
+
+    static String[] templateFields() throws IOException {
+        try (InputStream in = TemplateData.class.getResourceAsStream(TEMPLATE_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Template introuvable dans le classpath : " + TEMPLATE_RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            reader.readLine(); // en-tête
+            return CsvParser.parse(reader.readLine());
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package org.example.benchmarks;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.example.businessLogic.LatencyRecorder;
+import org.example.businessLogic.TransactionProcessor;
+import org.example.network.FeEndpoint;
+import org.example.network.NetworkManager;
+import org.example.stub.FeStubServer;
+import org.example.util.ClientConfig;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Macro-benchmark de bout en bout sur la boucle locale : un {@link FeStubServer} dans le même processus
+ * répond aux 0100, le client complet ({@link NetworkManager} + {@link TransactionProcessor}, chemin
+ * {@code sendGenerated} du mode charge) est piloté en boucle fermée à concurrence croissante.
+ * <p>
+ * Pour chaque palier : débit obtenu, percentiles de latence, temps CPU du processus (client et FE
+ * simulé), pauses GC (notifications des collecteurs, pauses stop-the-world seules). Le débit maximal
+ * soutenable est le plus haut débit d'un palier respectant {@code harness.maxErrorRate} et
+ * {@code harness.maxP99Ms}. Les résultats sont écrits en JSON dans {@code harness.output}.
+ * <p>
+ * Lancement : {@code java -cp target/benchmarks.jar org.example.benchmarks.ThroughputHarness},
+ * paramètres en {@code -Dharness.*} (voir {@code README.md}).
+ */
+public class ThroughputHarness {
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    private final TransactionProcessor processor;
+    private final long responseTimeoutMs;
+    private final AtomicLong sequence = new AtomicLong();
+    private final GcPauses gcPauses = new GcPauses();
+
+    record StepResult(int concurrency, double seconds, long completed, long errors, double tps,
+                      double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs,
+                      double cpuSeconds, double cpuUtilization, double cpuMicrosPerTx,
+                      long gcPauseCount, double gcPauseTotalMs, double gcPauseMaxMs, boolean sustainable) {
+    }
+
+    ThroughputHarness(TransactionProcessor processor, long responseTimeoutMs) {
+        this.processor = processor;
+        this.responseTimeoutMs = responseTimeoutMs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Mesure du client seul : pas de trace, numéros de séquence et file store-and-forward hors du répertoire d'état du client
+        defaultProperty("trace.level", "OFF");
+        defaultProperty("sequence.stateDir", "target/harness-state");
+        defaultProperty("saf.file", "target/harness-state/store-and-forward.log");
+        defaultProperty("latency.reportIntervalSeconds", "0");
+        defaultProperty("pinglog.file", "target/ping.log");
+
+        List<Integer> steps = new ArrayList<>();
+        for (String step : ClientConfig.getString("harness.steps", "1,2,4,8,16,32,64,128,256").split(",")) {
+            steps.add(Integer.parseInt(step.trim()));
+        }
+        long stepSeconds = ClientConfig.getLong("harness.stepSeconds", 10);
+        long warmupSeconds = ClientConfig.getLong("harness.warmupSeconds", 10);
+        int sessionsPerEndpoint = ClientConfig.getInt("harness.sessionsPerEndpoint", 2);
+        double maxErrorRate = Double.parseDouble(ClientConfig.getString("harness.maxErrorRate", "0.001"));
+        double maxP99Ms = Double.parseDouble(ClientConfig.getString("harness.maxP99Ms", "50"));
+        long responseTimeoutMs = ClientConfig.getLong("harness.responseTimeoutMs", 5000);
+        String template = ClientConfig.getString("harness.template", "../src/main/resources/auth_template.txt");
+        Path output = Path.of(ClientConfig.getString("harness.output", "target/throughput-results.json"));
+
+        FeStubServer stub = FeStubServer.fromConfig();
+        InetSocketAddress fe1 = stub.listen("STUB-1", new InetSocketAddress("127.0.0.1", 0));
+        InetSocketAddress fe2 = stub.listen("STUB-2", new InetSocketAddress("127.0.0.1", 0));
+        NetworkManager manager = new NetworkManager(List.of(
+                new FeEndpoint("FE1", "127.0.0.1", fe1.getPort()),
+                new FeEndpoint("FE2", "127.0.0.1", fe2.getPort())), sessionsPerEndpoint);
+        TransactionProcessor processor = new TransactionProcessor(manager, template, new LatencyRecorder(0, null));
+
+        manager.start();
+        if (!manager.awaitReady(0, 30_000)) {
+            throw new IllegalStateException("Sessions FE non signées après 30 s : " + manager.readySessionCount());
+        }
+
+        ThroughputHarness harness = new ThroughputHarness(processor, responseTimeoutMs);
+        int warmupConcurrency = steps.get(steps.size() / 2);
+        System.out.printf("Préchauffage : %d s à concurrence %d%n", warmupSeconds, warmupConcurrency);
+        harness.runStep(warmupConcurrency, warmupSeconds, maxErrorRate, maxP99Ms);
+
+        List<StepResult> results = new ArrayList<>();
+        System.out.println("concurrence       TPS    p50 ms    p99 ms  p99.9 ms    max ms  erreurs  CPU µs/tx  pauses GC (ms)");
+        for (int concurrency : steps) {
+            StepResult result = harness.runStep(concurrency, stepSeconds, maxErrorRate, maxP99Ms);
+            results.add(result);
+            System.out.printf(Locale.ROOT, "%11d %9.0f %9.2f %9.2f %9.2f %9.2f %8d %10.1f %6d (%.1f)%s%n",
+                    concurrency, result.tps(), result.p50Ms(), result.p99Ms(), result.p999Ms(), result.maxMs(),
+                    result.errors(), result.cpuMicrosPerTx(), result.gcPauseCount(), result.gcPauseTotalMs(),
+                    result.sustainable() ? "" : "  hors seuils");
+        }
+
+        StepResult best = null;
+        for (StepResult result : results) {
+            if (result.sustainable() && (best == null || result.tps() > best.tps())) {
+                best = result;
+            }
+        }
+        System.out.println(best != null
+                ? String.format(Locale.ROOT, "Débit maximal soutenable : %.0f TPS (concurrence %d)", best.tps(), best.concurrency())
+                : "Aucun palier ne respecte les seuils.");
+
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, toJson(results, best, sessionsPerEndpoint, stepSeconds, warmupSeconds,
+                maxErrorRate, maxP99Ms, responseTimeoutMs), StandardCharsets.UTF_8);
+        System.out.println("Résultats écrits dans " + output);
+
+        processor.close();
+        manager.exit();
+        stub.shutdown();
+        System.exit(0);
+    }
+
+    /**
+     * Palier en boucle fermée : {@code concurrency} émetteurs envoient chacun une demande,
+     * attendent la réponse, et recommencent pendant {@code seconds} secondes.
+     */
+    StepResult runStep(int concurrency, long seconds, double maxErrorRate, double maxP99Ms) {
+        Recorder latencies = new Recorder(3);
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long cpuBefore = processCpuNanos();
+        GcPauses.Snapshot gcBefore = gcPauses.snapshot();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                senders.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        try {
+                            processor.sendGenerated(sequence.getAndIncrement(), responseTimeoutMs, sent).join();
+                            latencies.recordValue(System.nanoTime() - sent);
+                            completed.increment();
+                        } catch (RuntimeException e) {
+                            errors.increment();
+                        }
+                    }
+                });
+            }
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        double cpuSeconds = (processCpuNanos() - cpuBefore) / 1e9;
+        GcPauses.Snapshot gc = gcPauses.snapshot().minus(gcBefore);
+        Histogram histogram = latencies.getIntervalHistogram();
+        long done = completed.sum();
+        long failed = errors.sum();
+        double p99Ms = histogram.getValueAtPercentile(99) / (double) NANOS_PER_MS;
+        double errorRate = done + failed == 0 ? 1 : failed / (double) (done + failed);
+        return new StepResult(concurrency, elapsed, done, failed, done / elapsed,
+                histogram.getValueAtPercentile(50) / (double) NANOS_PER_MS,
+                histogram.getValueAtPercentile(90) / (double) NANOS_PER_MS,
+                p99Ms,
+                histogram.getValueAtPercentile(99.9) / (double) NANOS_PER_MS,
+                histogram.getMaxValue() / (double) NANOS_PER_MS,
+                cpuSeconds, cpuSeconds / (elapsed * Runtime.getRuntime().availableProcessors()),
+                done == 0 ? 0 : cpuSeconds * 1e6 / done,
+                gc.count(), gc.totalMs(), gc.maxMs(),
+                done > 0 && errorRate <= maxErrorRate && p99Ms <= maxP99Ms);
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    private static void defaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static String toJson(List<StepResult> results, StepResult best, int sessionsPerEndpoint, long stepSeconds,
+                                 long warmupSeconds, double maxErrorRate, double maxP99Ms, long responseTimeoutMs) {
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n");
+        json.append("  \"timestamp\": \"").append(Instant.now()).append("\",\n");
+        json.append("  \"javaVersion\": \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"availableProcessors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"config\": {");
+        json.append("\"endpoints\": 2, \"sessionsPerEndpoint\": ").append(sessionsPerEndpoint);
+        json.append(", \"stepSeconds\": ").append(stepSeconds);
+        json.append(", \"warmupSeconds\": ").append(warmupSeconds);
+        json.append(", \"responseTimeoutMs\": ").append(responseTimeoutMs);
+        json.append(", \"maxErrorRate\": ").append(number(maxErrorRate));
+        json.append(", \"maxP99Ms\": ").append(number(maxP99Ms));
+        json.append(", \"stubLatency\": \"").append(ClientConfig.getString("stub.latency", "0")).append("\"},\n");
+        json.append("  \"maxSustainableTps\": ").append(best != null ? number(best.tps()) : "null").append(",\n");
+        json.append("  \"maxSustainableConcurrency\": ").append(best != null ? best.concurrency() : "null").append(",\n");
+        json.append("  \"steps\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            StepResult r = results.get(i);
+            json.append("    {\"concurrency\": ").append(r.concurrency())
+                    .append(", \"seconds\": ").append(number(r.seconds()))
+                    .append(", \"completed\": ").append(r.completed())
+                    .append(", \"errors\": ").append(r.errors())
+                    .append(", \"tps\": ").append(number(r.tps()))
+                    .append(", \"latencyMs\": {\"p50\": ").append(number(r.p50Ms()))
+                    .append(", \"p90\": ").append(number(r.p90Ms()))
+                    .append(", \"p99\": ").append(number(r.p99Ms()))
+                    .append(", \"p999\": ").append(number(r.p999Ms()))
+                    .append(", \"max\": ").append(number(r.maxMs())).append('}')
+                    .append(", \"cpuSeconds\": ").append(number(r.cpuSeconds()))
+                    .append(", \"cpuUtilization\": ").append(number(r.cpuUtilization()))
+                    .append(", \"cpuMicrosPerTx\": ").append(number(r.cpuMicrosPerTx()))
+                    .append(", \"gcPauses\": {\"count\": ").append(r.gcPauseCount())
+                    .append(", \"totalMs\": ").append(number(r.gcPauseTotalMs()))
+                    .append(", \"maxMs\": ").append(number(r.gcPauseMaxMs())).append('}')
+                    .append(", \"sustainable\": ").append(r.sustainable())
+                    .append(i < results.size() - 1 ? "},\n" : "}\n");
+        }
+        json.append("  ]\n}\n");
+        return json.toString();
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * Pauses GC cumulées depuis le démarrage, relevées par les notifications des collecteurs.
+     * Seules les actions qui désignent un arrêt de l'application sont comptées : collectes mineures
+     * et majeures, pauses des collecteurs concurrents (Remark et Cleanup de G1 sur le bean
+     * « G1 Concurrent GC », pauses de ZGC et Shenandoah). Les beans « ... Cycles » de ces derniers
+     * rapportent la durée d'un cycle entier, surtout concurrent : ils sont ignorés.
+     */
+    private static final class GcPauses {
+        private long count;
+        private long totalMs;
+        private long maxMs;
+
+        record Snapshot(long count, double totalMs, double maxMs) {
+            Snapshot minus(Snapshot before) {
+                return new Snapshot(count - before.count, totalMs - before.totalMs, maxMs);
+            }
+        }
+
+        GcPauses() {
+            NotificationListener listener = (notification, handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                if (isPause(info.getGcName(), info.getGcAction())) {
+                    record(info.getGcInfo().getDuration());
+                }
+            };
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter emitter) {
+                    emitter.addNotificationListener(listener, null, null);
+                }
+            }
+        }
+
+        static boolean isPause(String collector, String action) {
+            if (collector.endsWith("Cycles")) {
+                return false;
+            }
+            return "end of minor GC".equals(action) || "end of major GC".equals(action) || action.endsWith(" pause");
+        }
+
+        private synchronized void record(long durationMs) {
+            count++;
+            totalMs += durationMs;
+            maxMs = Math.max(maxMs, durationMs);
+        }
+
+        /**
+         * Cumul courant ; le maximum est remis à zéro pour le palier suivant.
+         */
+        synchronized Snapshot snapshot() {
+            Snapshot snapshot = new Snapshot(count, totalMs, maxMs);
+            maxMs = 0;
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.benchmarks;
+
+import org.example.businessLogic.IsoMessageBuilder;
+import org.example.businessLogic.TransactionValidator;
+import org.jpos.iso.ISOMsg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation de la 0100 du template avant envoi (toutes les règles passent).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class ValidationBenchmark {
+    private final TransactionValidator validator = new TransactionValidator();
+    private ISOMsg request;
+
+    @Setup
+    public void setUp() throws Exception {
+        request = IsoMessageBuilder.createAuthRequest(TemplateData.templateFields());
+        if (!validator.validateTransaction(request)) {
+            throw new IllegalStateException("Le template ne passe pas la validation");
+        }
+    }
+
+    @Benchmark
+    public boolean validateTransaction() {
+        return validator.validateTransaction(request);
+    }
+}
@@ -1,31 +1,69 @@
 package org.example;
 
+import org.example.businessLogic.LatencyRecorder;
+import org.example.businessLogic.LoadGenerator;
+import org.example.businessLogic.LoadProfile;
 import org.example.businessLogic.TransactionProcessor;
 import org.example.network.NetworkManager;
+import org.example.network.PingLogger;
+import org.example.util.ClientConfig;
+import org.example.util.ClientMetrics;
+import org.example.util.TraceLog;
 
 public class IsoClient {
 
     public static void main(String[] args) {
         try {
             String templateFilePath = "src/main/resources/auth_template.txt"; // chemin vers le fichier de template
-            int startingStan = 1; // STAN initial
 
             NetworkManager manager = new NetworkManager();
-            TransactionProcessor processor = new TransactionProcessor(manager, templateFilePath, startingStan);
+            LatencyRecorder latencyRecorder = LatencyRecorder.fromConfig();
+            TransactionProcessor processor = new TransactionProcessor(manager, templateFilePath, latencyRecorder);
 
-            System.out.println("Démarrage du client ISO 8583...");
-            manager.start();
-            Thread.sleep(2000);
-            // Envoi automatique et continu à partir du template
-            processor.startContinuousSend();
-
-            // Hook d'arrêt propre
+            // Hook d'arrêt propre (enregistré avant les boucles d'envoi, qui ne rendent pas la main)
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.out.println("Arrêt du client...");
                 manager.exit();
+                latencyRecorder.close();
+                processor.close();
+                ClientMetrics.stop();
+                TraceLog.close();
+                PingLogger.shutdown();
                 System.out.println("Client arrêté.");
             }, "ShutdownHook"));
 
+            // Métriques lisibles en HTTP et/ou dans un fichier dès la connexion aux FE (metrics.*)
+            ClientMetrics.start();
+            System.out.println("Démarrage du client ISO 8583...");
+            manager.start();
+            // Envoi dès que les sessions requises sont signées (toutes par défaut), au plus fe.readyTimeoutMs
+            int requiredSessions = ClientConfig.getInt("fe.readyMinSessions", 0);
+            long readyTimeoutMs = ClientConfig.getLong("fe.readyTimeoutMs", 30000);
+            if (!manager.awaitReady(requiredSessions, readyTimeoutMs)) {
+                System.err.println("Seulement " + manager.readySessionCount() + " session(s) FE signée(s) après "
+                        + readyTimeoutMs + " ms, envoi démarré quand même.");
+            }
+            latencyRecorder.start();
+            // Envoi automatique et continu à partir du template
+            // "pipeline [maxEnVol] [timeoutMs]" : plusieurs autorisations en vol par connexion
+            // "load [tps] [montéeS] [palierS] [descenteS]" : génération de charge en boucle ouverte
+            if (args.length > 0 && "load".equals(args[0])) {
+                LoadProfile profile = args.length > 4
+                        ? new LoadProfile(Double.parseDouble(args[1]), Double.parseDouble(args[2]),
+                                Double.parseDouble(args[3]), Double.parseDouble(args[4]))
+                        : LoadProfile.fromConfig();
+                new LoadGenerator(processor, profile, ClientConfig.getLong("load.responseTimeoutMs", 30000)).run();
+                latencyRecorder.close();
+                processor.close();
+                manager.exit();
+            } else if (args.length > 0 && "pipeline".equals(args[0])) {
+                int maxInFlight = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+                long responseTimeoutMs = args.length > 2 ? Long.parseLong(args[2]) : 30000;
+                processor.startPipelinedSend(maxInFlight, responseTimeoutMs);
+            } else {
+                processor.startContinuousSend();
+            }
+
         } catch (Exception e) {
             System.err.println("Erreur au démarrage du client : " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,197 @@
+package org.example.businessLogic;
+
+import org.jpos.iso.ISOBasePackager;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOFieldPackager;
+import org.jpos.iso.ISOMsg;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Demande d'autorisation 0100 construite une seule fois à partir du template CSV.
+ * Chaque envoi part d'une copie de ce message, dont seuls les champs variables
+ * (date/heure, STAN et référence) sont réécrits : plus de reconstruction champ par champ.
+ * <p>
+ * Pour la génération à haut débit, le template est aussi packé une fois en image d'octets dont on
+ * connaît la position des champs de longueur fixe 7, 11, 12, 13 et 37 : {@link #writePacked}
+ * recopie l'image et y écrit directement les chiffres, sans ISOMsg, packager ni String.format.
+ */
+public class AuthRequestTemplate {
+    private static final int[] PATCHED_FIELDS = {7, 11, 12, 13, 37};
+
+    private final ISOMsg template;
+    private final byte[] packedImage;
+    private final int[] fieldOffsets = new int[129];
+    private final int[] fieldLengths = new int[129];
+
+    public AuthRequestTemplate(String[] templateFields) throws Exception {
+        this.template = IsoMessageBuilder.createAuthRequest(templateFields);
+        this.packedImage = template.pack();
+        locatePatchedFields();
+    }
+
+    /**
+     * Nouvelle demande à partir du gabarit, datée de la seconde courante (champs 7, 12 et 13) comme
+     * celles écrites par {@link #writePacked}.
+     * @param stan STAN (champ 11) sur 6 chiffres, ou null pour conserver celui du template.
+     * @param reference référence (champ 37) sur 12 caractères.
+     */
+    public ISOMsg newRequest(String stan, String reference) throws ISOException {
+        ISOMsg msg = (ISOMsg) template.clone();
+        setDateTime(msg, Clock.now());
+        if (stan != null) {
+            msg.set(11, stan);
+        }
+        msg.set(37, reference);
+        return msg;
+    }
+
+    /**
+     * Taille de l'image packée : toutes les demandes écrites par {@link #writePacked} ont cette longueur.
+     */
+    public int getPackedLength() {
+        return packedImage.length;
+    }
+
+    /**
+     * Écrit dans {@code dest}, à partir de l'indice {@code offset} (après l'en-tête de trame par exemple),
+     * une demande complète et packée, avec le STAN et la référence donnés et la date/heure courante
+     * dans les champs 7, 12 et 13. Aucune allocation hors changement de seconde.
+     * @return la seconde epoch écrite dans les champs date/heure, pour {@link #sentRequest}.
+     */
+    public long writePacked(byte[] dest, int offset, int stan, long reference) {
+        System.arraycopy(packedImage, 0, dest, offset, packedImage.length);
+        Clock clock = Clock.now();
+        System.arraycopy(clock.transmission, 0, dest, offset + fieldOffsets[7], clock.transmission.length);
+        System.arraycopy(clock.localTime, 0, dest, offset + fieldOffsets[12], clock.localTime.length);
+        System.arraycopy(clock.localDate, 0, dest, offset + fieldOffsets[13], clock.localDate.length);
+        writeDigits(dest, offset + fieldOffsets[11], fieldLengths[11], stan);
+        writeDigits(dest, offset + fieldOffsets[37], fieldLengths[37], reference);
+        return clock.epochSecond;
+    }
+
+    /**
+     * Demande identique à celle qu'a écrite {@link #writePacked} avec ce STAN et cette référence à la seconde
+     * {@code epochSecond} : permet de retrouver une demande émise (pour l'annuler) sans en garder de copie.
+     */
+    public ISOMsg sentRequest(int stan, long reference, long epochSecond) throws ISOException {
+        ISOMsg msg = (ISOMsg) template.clone();
+        setDateTime(msg, Clock.at(epochSecond));
+        msg.set(11, digits(stan, fieldLengths[11]));
+        msg.set(37, digits(reference, fieldLengths[37]));
+        return msg;
+    }
+
+    private static void setDateTime(ISOMsg msg, Clock clock) throws ISOException {
+        msg.set(7, new String(clock.transmission, StandardCharsets.US_ASCII));
+        msg.set(12, new String(clock.localTime, StandardCharsets.US_ASCII));
+        msg.set(13, new String(clock.localDate, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Clé de rapprochement STAN/référence d'une demande écrite par {@link #writePacked} à l'indice {@code offset}.
+     */
+    public String correlationKey(byte[] packed, int offset) {
+        return PendingRequestTable.keyOf(
+                new String(packed, offset + fieldOffsets[11], fieldLengths[11], StandardCharsets.US_ASCII),
+                new String(packed, offset + fieldOffsets[37], fieldLengths[37], StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Calcule la position des champs réécrits en repackant chaque champ avec son propre field packager :
+     * MTI, puis bitmap (déduite de la longueur totale), puis les champs présents dans l'ordre.
+     */
+    private void locatePatchedFields() throws ISOException {
+        if (!(template.getPackager() instanceof ISOBasePackager packager)) {
+            throw new IllegalStateException("Packager sans field packagers : " + template.getPackager());
+        }
+        int mtiLength = packager.getFieldPackager(0).pack(template.getComponent(0)).length;
+        int dataLength = 0;
+        int[] packedLengths = new int[129];
+        for (int i = 2; i <= 128; i++) {
+            if (template.hasField(i)) {
+                packedLengths[i] = packager.getFieldPackager(i).pack(template.getComponent(i)).length;
+                dataLength += packedLengths[i];
+            }
+        }
+        int position = packedImage.length - dataLength; // MTI + bitmap(s)
+        if (position <= mtiLength) {
+            throw new IllegalStateException("Image 0100 incohérente : " + packedImage.length + " octets");
+        }
+        for (int i = 2; i <= 128; i++) {
+            fieldOffsets[i] = position;
+            position += packedLengths[i];
+        }
+        for (int field : PATCHED_FIELDS) {
+            ISOFieldPackager fieldPackager = packager.getFieldPackager(field);
+            // Seuls les champs de longueur fixe (pas de préfixe LL/LLL) peuvent être réécrits en place
+            if (!template.hasField(field) || packedLengths[field] != fieldPackager.getLength()) {
+                throw new IllegalArgumentException("Le champ " + field + " du template doit être présent et de longueur fixe "
+                        + fieldPackager.getLength());
+            }
+            fieldLengths[field] = packedLengths[field];
+        }
+    }
+
+    private static String digits(long value, int length) {
+        byte[] digits = new byte[length];
+        writeDigits(digits, 0, length, value);
+        return new String(digits, StandardCharsets.US_ASCII);
+    }
+
+    private static void writeDigits(byte[] dest, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            dest[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Chiffres des champs date/heure pour la seconde courante, recalculés une fois par seconde
+     * et partagés entre threads (instantané immuable).
+     */
+    private static final class Clock {
+        private static volatile Clock current = new Clock(System.currentTimeMillis() / 1000);
+
+        final long epochSecond;
+        final byte[] transmission = new byte[10]; // champ 7 : MMDDhhmmss (GMT)
+        final byte[] localTime = new byte[6];     // champ 12 : hhmmss
+        final byte[] localDate = new byte[4];     // champ 13 : MMDD
+
+        private Clock(long epochSecond) {
+            this.epochSecond = epochSecond;
+            LocalDateTime gmt = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+            LocalDateTime local = LocalDateTime.ofEpochSecond(epochSecond, 0,
+                    ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(epochSecond)));
+            writeDigits(transmission, 0, 2, gmt.getMonthValue());
+            writeDigits(transmission, 2, 2, gmt.getDayOfMonth());
+            writeDigits(transmission, 4, 2, gmt.getHour());
+            writeDigits(transmission, 6, 2, gmt.getMinute());
+            writeDigits(transmission, 8, 2, gmt.getSecond());
+            writeDigits(localTime, 0, 2, local.getHour());
+            writeDigits(localTime, 2, 2, local.getMinute());
+            writeDigits(localTime, 4, 2, local.getSecond());
+            writeDigits(localDate, 0, 2, local.getMonthValue());
+            writeDigits(localDate, 2, 2, local.getDayOfMonth());
+        }
+
+        static Clock now() {
+            long second = System.currentTimeMillis() / 1000;
+            Clock clock = current;
+            if (clock.epochSecond != second) {
+                clock = new Clock(second);
+                current = clock;
+            }
+            return clock;
+        }
+
+        static Clock at(long epochSecond) {
+            Clock clock = current;
+            return clock.epochSecond == epochSecond ? clock : new Clock(epochSecond);
+        }
+    }
+}
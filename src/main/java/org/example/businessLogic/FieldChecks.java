@@ -0,0 +1,99 @@
+package org.example.businessLogic;
+
+/**
+ * Contrôles de format des champs ISO, écrits comme des parcours de caractères :
+ * sans expression régulière ni allocation.
+ */
+public final class FieldChecks {
+
+    private FieldChecks() {
+    }
+
+    /**
+     * Uniquement des chiffres, entre {@code min} et {@code max} caractères.
+     */
+    public static ValidationEngine.FieldCheck digits(int min, int max) {
+        return value -> value.length() >= min && value.length() <= max && allDigits(value, 0, value.length());
+    }
+
+    /**
+     * Longueur entre {@code min} et {@code max} caractères, contenu libre.
+     */
+    public static ValidationEngine.FieldCheck length(int min, int max) {
+        return value -> value.length() >= min && value.length() <= max;
+    }
+
+    /**
+     * Numéro de carte : 13 à 19 chiffres dont le dernier est la clé de Luhn.
+     */
+    public static ValidationEngine.FieldCheck luhnPan() {
+        return value -> value.length() >= 13 && value.length() <= 19
+                && allDigits(value, 0, value.length()) && luhnValid(value);
+    }
+
+    /**
+     * Date/heure MMDDhhmmss (champ 7) : mois, jour, heure, minutes et secondes dans leurs bornes.
+     */
+    public static ValidationEngine.FieldCheck monthDayTime() {
+        return value -> value.length() == 10 && allDigits(value, 0, 10)
+                && inRange(value, 0, 1, 12) && inRange(value, 2, 1, 31)
+                && inRange(value, 4, 0, 23) && inRange(value, 6, 0, 59) && inRange(value, 8, 0, 59);
+    }
+
+    /**
+     * Date d'expiration MMYY (champ 14).
+     */
+    public static ValidationEngine.FieldCheck expiryMonthYear() {
+        return value -> value.length() == 4 && allDigits(value, 0, 4) && inRange(value, 0, 1, 12);
+    }
+
+    /**
+     * Track 2 : chiffres et séparateur '=' uniquement.
+     */
+    public static ValidationEngine.FieldCheck track2() {
+        return value -> {
+            if (value.isEmpty()) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if ((c < '0' || c > '9') && c != '=') {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    static boolean luhnValid(CharSequence pan) {
+        int sum = 0;
+        boolean doubled = false;
+        for (int i = pan.length() - 1; i >= 0; i--) {
+            int digit = pan.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static boolean allDigits(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inRange(String value, int offset, int min, int max) {
+        int number = (value.charAt(offset) - '0') * 10 + (value.charAt(offset + 1) - '0');
+        return number >= min && number <= max;
+    }
+}
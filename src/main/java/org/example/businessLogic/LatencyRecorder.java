@@ -0,0 +1,183 @@
+package org.example.businessLogic;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.example.util.ClientConfig;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Latences aller-retour des autorisations, enregistrées dans des histogrammes HdrHistogram
+ * par FE, MTI et code réponse. L'enregistrement est sans verrou (un {@link Recorder} par code réponse,
+ * retrouvé par trois lectures de tables imbriquées, sans construire de clé) ; un thread de fond affiche
+ * périodiquement les percentiles de l'intervalle écoulé et les cumule pour le rapport final, également
+ * exporté dans un fichier. Le libellé « FE | MTI | code réponse » n'est construit qu'au rapport.
+ */
+public class LatencyRecorder {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MS = 1_000_000.0;
+
+    /** Code réponse utilisé pour les requêtes expirées ou en erreur (pas de champ 39). */
+    public static final String NO_RESPONSE_CODE = "--";
+
+    private final long reportIntervalSeconds;
+    private final String reportFile;
+    // FE -> MTI -> code réponse
+    private final Map<String, Map<String, Map<String, Recorder>>> recorders = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> cumulative = new TreeMap<>();
+    private final Map<String, Histogram> intervals = new ConcurrentHashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private ScheduledExecutorService reporter;
+    private long startNanos;
+    private long lastReportNanos;
+
+    public LatencyRecorder(long reportIntervalSeconds, String reportFile) {
+        this.reportIntervalSeconds = reportIntervalSeconds;
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * Recorder configuré par {@code latency.reportIntervalSeconds} (0 désactive l'affichage périodique)
+     * et {@code latency.reportFile} (vide pour ne rien exporter).
+     */
+    public static LatencyRecorder fromConfig() {
+        return new LatencyRecorder(
+                ClientConfig.getLong("latency.reportIntervalSeconds", 10),
+                ClientConfig.getString("latency.reportFile", "latency-report.txt"));
+    }
+
+    public synchronized void start() {
+        startNanos = System.nanoTime();
+        lastReportNanos = startNanos;
+        if (reportIntervalSeconds > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "LatencyReporter");
+                t.setDaemon(true);
+                return t;
+            });
+            reporter.scheduleAtFixedRate(this::printInterval, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Enregistre une latence (en nanosecondes) ; appelable depuis n'importe quel thread.
+     */
+    public void record(String endpoint, String mti, String responseCode, long latencyNanos) {
+        recorder(endpoint, mti, responseCode != null ? responseCode : NO_RESPONSE_CODE)
+                .recordValue(Math.max(0, latencyNanos));
+    }
+
+    private Recorder recorder(String endpoint, String mti, String responseCode) {
+        Map<String, Map<String, Recorder>> byMti = recorders.get(endpoint);
+        if (byMti == null) {
+            byMti = recorders.computeIfAbsent(endpoint, e -> new ConcurrentHashMap<>());
+        }
+        Map<String, Recorder> byResponseCode = byMti.get(mti);
+        if (byResponseCode == null) {
+            byResponseCode = byMti.computeIfAbsent(mti, m -> new ConcurrentHashMap<>());
+        }
+        Recorder recorder = byResponseCode.get(responseCode);
+        return recorder != null ? recorder
+                : byResponseCode.computeIfAbsent(responseCode, c -> new Recorder(SIGNIFICANT_DIGITS));
+    }
+
+    /**
+     * Affiche les percentiles de l'intervalle écoulé depuis le dernier rapport.
+     */
+    public synchronized void printInterval() {
+        long now = System.nanoTime();
+        double seconds = (now - lastReportNanos) / 1e9;
+        lastReportNanos = now;
+
+        Map<String, Histogram> snapshot = collectIntervals();
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        System.out.printf("[latence] intervalle de %.1fs%n", seconds);
+        printTable(System.out, snapshot, seconds);
+    }
+
+    /**
+     * Arrête l'affichage périodique, affiche le rapport cumulé et l'exporte dans le fichier configuré.
+     */
+    public synchronized void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        collectIntervals();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        if (cumulative.isEmpty()) {
+            return;
+        }
+
+        System.out.printf("[latence] rapport final sur %.1fs%n", seconds);
+        printTable(System.out, cumulative, seconds);
+
+        if (reportFile == null || reportFile.isBlank()) {
+            return;
+        }
+        try (PrintStream out = new PrintStream(new FileOutputStream(reportFile), false, StandardCharsets.UTF_8)) {
+            out.printf("Durée : %.1fs%n", seconds);
+            printTable(out, cumulative, seconds);
+            for (Map.Entry<String, Histogram> entry : cumulative.entrySet()) {
+                out.println();
+                out.println("# " + entry.getKey() + " (valeurs en ms)");
+                entry.getValue().outputPercentileDistribution(out, 5, NANOS_PER_MS);
+            }
+            System.out.println("[latence] rapport exporté dans " + reportFile);
+        } catch (IOException e) {
+            System.err.println("Impossible d'écrire le rapport de latence " + reportFile + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Histogrammes d'intervalle de chaque clé, cumulés au passage dans le rapport final.
+     */
+    private Map<String, Histogram> collectIntervals() {
+        Map<String, Histogram> snapshot = new TreeMap<>();
+        for (Map.Entry<String, Map<String, Map<String, Recorder>>> byEndpoint : recorders.entrySet()) {
+            for (Map.Entry<String, Map<String, Recorder>> byMti : byEndpoint.getValue().entrySet()) {
+                for (Map.Entry<String, Recorder> byResponseCode : byMti.getValue().entrySet()) {
+                    String key = byEndpoint.getKey() + " | " + byMti.getKey() + " | " + byResponseCode.getKey();
+                    // Le recyclage de l'histogramme précédent évite une allocation par intervalle
+                    Histogram interval = byResponseCode.getValue().getIntervalHistogram(intervals.get(key));
+                    intervals.put(key, interval);
+                    if (interval.getTotalCount() == 0) {
+                        continue;
+                    }
+                    snapshot.put(key, interval);
+                    cumulative.computeIfAbsent(key, k -> new Histogram(SIGNIFICANT_DIGITS)).add(interval);
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static void printTable(PrintStream out, Map<String, Histogram> histograms, double seconds) {
+        out.printf("  %-28s %9s %9s %9s %9s %9s %9s %9s%n",
+                "FE | MTI | RC", "nombre", "TPS", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram h = entry.getValue();
+            out.printf("  %-28s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    entry.getKey(), h.getTotalCount(), seconds > 0 ? h.getTotalCount() / seconds : 0,
+                    h.getValueAtPercentile(50) / NANOS_PER_MS,
+                    h.getValueAtPercentile(90) / NANOS_PER_MS,
+                    h.getValueAtPercentile(99) / NANOS_PER_MS,
+                    h.getValueAtPercentile(99.9) / NANOS_PER_MS,
+                    h.getMaxValue() / NANOS_PER_MS);
+        }
+    }
+}
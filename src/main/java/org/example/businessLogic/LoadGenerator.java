@@ -0,0 +1,98 @@
+package org.example.businessLogic;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Générateur de charge en boucle ouverte.
+ * Un thread planificateur émet chaque transaction à l'instant prévu par le {@link LoadProfile},
+ * sans jamais attendre les réponses ; l'envoi et l'attente de la réponse se font sur un
+ * thread virtuel par transaction. Un FE lent n'abaisse donc pas le débit offert, et la latence
+ * est mesurée depuis l'instant prévu (et non depuis l'envoi effectif), afin qu'un retard du
+ * générateur ou du FE ne masque pas les temps de réponse (omission coordonnée).
+ */
+public class LoadGenerator {
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final TransactionProcessor processor;
+    private final LoadProfile profile;
+    private final long responseTimeoutMs;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong maxScheduleLagNanos = new AtomicLong();
+
+    public LoadGenerator(TransactionProcessor processor, LoadProfile profile, long responseTimeoutMs) {
+        this.processor = processor;
+        this.profile = profile;
+        this.responseTimeoutMs = responseTimeoutMs;
+    }
+
+    /**
+     * Déroule le profil complet puis attend la fin des transactions encore en vol.
+     */
+    public void run() {
+        System.out.println("Génération de charge : " + profile);
+        long start = System.nanoTime();
+        long nextProgress = start + PROGRESS_INTERVAL_NANOS;
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long n = 0; ; n++) {
+                long offset = profile.nanosForEvent(n);
+                if (offset < 0) {
+                    break;
+                }
+                long intended = start + offset;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                } else {
+                    maxScheduleLagNanos.accumulateAndGet(-wait, Math::max);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    System.err.println("Génération de charge interrompue.");
+                    break;
+                }
+
+                long sequence = n;
+                workers.submit(() -> sendOne(sequence, intended));
+                sent.increment();
+
+                long now = System.nanoTime();
+                if (now >= nextProgress) {
+                    printProgress(now - start);
+                    nextProgress += PROGRESS_INTERVAL_NANOS;
+                }
+            }
+        }
+        printSummary(System.nanoTime() - start);
+    }
+
+    private void sendOne(long sequence, long intendedNanos) {
+        try {
+            processor.sendGenerated(sequence, responseTimeoutMs, intendedNanos).join();
+            completed.increment();
+        } catch (Exception e) {
+            failed.increment();
+        }
+    }
+
+    private void printProgress(long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        System.out.printf("[charge] t=%.0fs cible=%.0f TPS envoyées=%d réponses=%d échecs=%d en vol=%d%n",
+                elapsedSeconds, profile.rateAt(elapsedSeconds), sent.sum(), completed.sum(), failed.sum(),
+                sent.sum() - completed.sum() - failed.sum());
+    }
+
+    private void printSummary(long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        System.out.printf("[charge] Terminé en %.1fs : %d envoyées (%.1f TPS), %d réponses, %d échecs, retard max du planificateur %.1f ms%n",
+                elapsedSeconds, sent.sum(), sent.sum() / elapsedSeconds, completed.sum(), failed.sum(),
+                maxScheduleLagNanos.get() / 1e6);
+    }
+}
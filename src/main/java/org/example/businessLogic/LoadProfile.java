@@ -0,0 +1,91 @@
+package org.example.businessLogic;
+
+import org.example.util.ClientConfig;
+
+/**
+ * Profil de charge : montée linéaire jusqu'au débit cible, palier, puis descente linéaire.
+ * L'instant d'émission de chaque transaction est calculé à l'avance à partir du profil
+ * (charge en boucle ouverte) : une réponse lente ne retarde jamais les envois suivants.
+ */
+public class LoadProfile {
+    private final double targetTps;
+    private final double[] stageDurations; // secondes : montée, palier, descente
+    private final double[] stageStartRates;
+    private final double[] stageEndRates;
+
+    public LoadProfile(double targetTps, double rampUpSeconds, double steadySeconds, double rampDownSeconds) {
+        if (targetTps <= 0) {
+            throw new IllegalArgumentException("Le débit cible doit être positif : " + targetTps);
+        }
+        if (rampUpSeconds < 0 || steadySeconds < 0 || rampDownSeconds < 0 || rampUpSeconds + steadySeconds + rampDownSeconds <= 0) {
+            throw new IllegalArgumentException("Durées de profil invalides.");
+        }
+        this.targetTps = targetTps;
+        this.stageDurations = new double[] {rampUpSeconds, steadySeconds, rampDownSeconds};
+        this.stageStartRates = new double[] {0, targetTps, targetTps};
+        this.stageEndRates = new double[] {targetTps, targetTps, 0};
+    }
+
+    /**
+     * Profil lu dans {@code load.targetTps} (décimal accepté, ex. 0.5), {@code load.rampUpSeconds},
+     * {@code load.steadySeconds} et {@code load.rampDownSeconds}.
+     */
+    public static LoadProfile fromConfig() {
+        return new LoadProfile(
+                Double.parseDouble(ClientConfig.getString("load.targetTps", "100")),
+                ClientConfig.getInt("load.rampUpSeconds", 30),
+                ClientConfig.getInt("load.steadySeconds", 300),
+                ClientConfig.getInt("load.rampDownSeconds", 30));
+    }
+
+    /**
+     * Débit visé à l'instant donné (secondes depuis le début du test).
+     */
+    public double rateAt(double elapsedSeconds) {
+        double stageStart = 0;
+        for (int i = 0; i < stageDurations.length; i++) {
+            double duration = stageDurations[i];
+            if (elapsedSeconds < stageStart + duration) {
+                double progress = (elapsedSeconds - stageStart) / duration;
+                return stageStartRates[i] + (stageEndRates[i] - stageStartRates[i]) * progress;
+            }
+            stageStart += duration;
+        }
+        return 0;
+    }
+
+    /**
+     * Instant d'émission prévu de la transaction de rang {@code n} (0 pour la première),
+     * en nanosecondes depuis le début du test, ou -1 si le profil est terminé avant.
+     * Le nombre de transactions émises jusqu'à t est l'intégrale du débit : sur une étape
+     * linéaire N(τ) = r0·τ + a·τ²/2, que l'on inverse pour trouver τ.
+     */
+    public long nanosForEvent(long n) {
+        double remaining = n + 1;
+        double stageStart = 0;
+        for (int i = 0; i < stageDurations.length; i++) {
+            double duration = stageDurations[i];
+            double r0 = stageStartRates[i];
+            double r1 = stageEndRates[i];
+            double stageCount = (r0 + r1) * duration / 2;
+            if (remaining <= stageCount) {
+                double slope = (r1 - r0) / duration;
+                double tau = slope == 0
+                        ? remaining / r0
+                        : (-r0 + Math.sqrt(Math.max(0, r0 * r0 + 2 * slope * remaining))) / slope;
+                return (long) ((stageStart + tau) * 1_000_000_000L);
+            }
+            remaining -= stageCount;
+            stageStart += duration;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        // Débit entier affiché sans décimales, débit fractionnaire (0.5 TPS...) tel quel
+        String tps = targetTps == Math.rint(targetTps) ? String.format("%.0f", targetTps) : Double.toString(targetTps);
+        return String.format("%s TPS (montée %.0fs, palier %.0fs, descente %.0fs)",
+                tps, stageDurations[0], stageDurations[1], stageDurations[2]);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.businessLogic;
+
+import org.example.util.TimingWheel;
+import org.jpos.iso.ISOMsg;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Table des autorisations en vol : associe chaque requête envoyée à la réponse
+ * reçue grâce au couple STAN (champ 11) + référence (champ 37).
+ * Les délais de réponse sont tenus par une {@link TimingWheel} : coût constant par requête,
+ * même avec des dizaines de milliers de requêtes en vol.
+ */
+public class PendingRequestTable {
+    private final Map<String, CompletableFuture<ISOMsg>> pending = new ConcurrentHashMap<>();
+    private final TimingWheel timeouts;
+
+    public PendingRequestTable(TimingWheel timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * Enregistre une requête avant son envoi, identifiée par sa clé (voir {@link #keyOf(String, String)}).
+     * Le future est complété exceptionnellement (TimeoutException) si aucune réponse
+     * n'arrive dans le délai imparti, et l'entrée est alors retirée de la table.
+     */
+    public CompletableFuture<ISOMsg> register(String key, long timeoutMs) {
+        CompletableFuture<ISOMsg> future = new CompletableFuture<>();
+        if (pending.putIfAbsent(key, future) != null) {
+            throw new IllegalStateException("Une requête est déjà en attente pour STAN/Référence " + key);
+        }
+        TimingWheel.Timeout timeout = timeouts.schedule(() -> future.completeExceptionally(
+                new TimeoutException("Pas de réponse en " + timeoutMs + " ms pour STAN/Référence " + key)), timeoutMs);
+        future.whenComplete((response, error) -> {
+            timeout.cancel();
+            pending.remove(key, future);
+        });
+        return future;
+    }
+
+    /**
+     * Complète la requête correspondant à la réponse reçue.
+     * @return false si aucune requête en attente ne correspond (réponse tardive ou inconnue).
+     */
+    public boolean complete(ISOMsg response) {
+        CompletableFuture<ISOMsg> future = pending.remove(keyOf(response));
+        if (future == null) {
+            return false;
+        }
+        return future.complete(response);
+    }
+
+    /**
+     * Fait échouer une requête précise (ex : l'envoi n'a pas pu être effectué).
+     */
+    public void fail(String key, Throwable cause) {
+        CompletableFuture<ISOMsg> future = pending.remove(key);
+        if (future != null) {
+            future.completeExceptionally(cause);
+        }
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    static String keyOf(ISOMsg msg) {
+        return keyOf(msg.getString(11), msg.getString(37));
+    }
+
+    static String keyOf(String stan, String reference) {
+        return (stan == null ? "" : stan.trim()) + "/" + (reference == null ? "" : reference.trim());
+    }
+}
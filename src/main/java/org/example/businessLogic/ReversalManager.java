@@ -0,0 +1,157 @@
+package org.example.businessLogic;
+
+import org.example.util.ClientConfig;
+import org.jpos.iso.ISODate;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Annulation automatique des autorisations restées sans réponse.
+ * <p>
+ * Une 0100 expirée a pu être approuvée par l'émetteur sans que la réponse ne revienne : elle est
+ * annulée par une 0400 (demande d'annulation) ou une 0420 (avis d'annulation) selon {@code reversal.mti},
+ * construite à partir des éléments de la demande d'origine : mêmes champs (hors piste et PIN),
+ * code réponse 68 (réponse reçue trop tard), champ 90 (MTI, STAN et date/heure de transmission
+ * d'origine, institutions acquéreur et transmetteur) et un nouveau STAN. Elle est confiée au
+ * {@link StoreAndForward}, qui l'enregistre sur disque puis l'envoie au FE qui a reçu la demande
+ * d'origine jusqu'à son acquittement, redémarrage compris.
+ */
+public class ReversalManager {
+    private static final String LATE_RESPONSE_CODE = "68";
+    private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+    // Données de piste, PIN et données puce : jamais reprises dans l'annulation
+    private static final int[] STRIPPED_FIELDS = {35, 45, 52, 55};
+
+    private final TransactionIds ids;
+    private final StoreAndForward storeAndForward;
+    private final String mti;
+
+    private final LongAdder submitted = new LongAdder();
+    // Construction des annulations hors du thread de la roue des délais, qui ne doit pas être retenu
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "reversal-builder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Demande d'origine, fournie telle quelle ou reconstruite (chemin rapide, voir {@link AuthRequestTemplate#sentRequest}).
+     */
+    @FunctionalInterface
+    public interface OriginalRequest {
+        ISOMsg build() throws ISOException;
+    }
+
+    public ReversalManager(TransactionIds ids, StoreAndForward storeAndForward, String mti) {
+        if (!"0400".equals(mti) && !"0420".equals(mti)) {
+            throw new IllegalArgumentException("MTI d'annulation invalide (0400 ou 0420 attendu) : " + mti);
+        }
+        this.ids = ids;
+        this.storeAndForward = storeAndForward;
+        this.mti = mti;
+    }
+
+    /**
+     * Annulations configurées par {@code reversal.*}, ou null si {@code reversal.enabled} est faux.
+     */
+    public static ReversalManager fromConfig(TransactionIds ids, StoreAndForward storeAndForward) {
+        if (!ClientConfig.getBoolean("reversal.enabled", true)) {
+            return null;
+        }
+        return new ReversalManager(ids, storeAndForward, ClientConfig.getString("reversal.mti", "0400"));
+    }
+
+    /**
+     * Annule la demande {@code original}, restée sans réponse du FE {@code endpoint}.
+     */
+    public void reverse(ISOMsg original, String endpoint) {
+        reverse(() -> original, endpoint);
+    }
+
+    /**
+     * Annule la demande restée sans réponse du FE {@code endpoint}, reconstruite par {@code original}.
+     * Appelé à l'expiration du délai de réponse, sur le thread de la roue des délais : la reconstruction,
+     * la construction de l'annulation et sa remise au store-and-forward sont confiées au thread des annulations.
+     */
+    public void reverse(OriginalRequest original, String endpoint) {
+        try {
+            builder.execute(() -> submit(original, endpoint));
+        } catch (RejectedExecutionException e) {
+            System.err.println("Annulation non émise vers " + endpoint + " : arrêt en cours.");
+        }
+    }
+
+    private void submit(OriginalRequest original, String endpoint) {
+        ISOMsg reversal;
+        try {
+            reversal = buildReversal(original.build());
+        } catch (ISOException e) {
+            System.err.println("Annulation impossible à construire : " + e.getMessage());
+            return;
+        }
+        submitted.increment();
+        storeAndForward.submit(reversal, endpoint);
+    }
+
+    /**
+     * Termine les annulations en cours de construction, avant la fermeture du store-and-forward.
+     */
+    public void close() {
+        builder.shutdown();
+        try {
+            if (!builder.awaitTermination(5, TimeUnit.SECONDS)) {
+                System.err.println("Annulations encore en construction à l'arrêt : non émises.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 0400/0420 reprenant les éléments de la demande d'origine.
+     */
+    ISOMsg buildReversal(ISOMsg original) throws ISOException {
+        ISOMsg reversal = (ISOMsg) original.clone();
+        reversal.setMTI(mti);
+        for (int field : STRIPPED_FIELDS) {
+            reversal.unset(field);
+        }
+        reversal.set(7, ISODate.getDateTime(new Date(), GMT));
+        reversal.set(11, String.format("%06d", ids.nextStan()));
+        reversal.set(39, LATE_RESPONSE_CODE);
+        reversal.set(90, originalDataElements(original));
+        return reversal;
+    }
+
+    /**
+     * Champ 90 : MTI (4), STAN (6), date/heure de transmission (10), institution acquéreur (11)
+     * et institution transmettrice (11) de la demande d'origine.
+     */
+    private static String originalDataElements(ISOMsg original) throws ISOException {
+        return original.getMTI()
+                + leftPadZeros(original.getString(11), 6)
+                + leftPadZeros(original.getString(7), 10)
+                + leftPadZeros(original.getString(32), 11)
+                + leftPadZeros(original.getString(33), 11);
+    }
+
+    public String summary() {
+        return "Annulations : " + submitted.sum() + " émise(s).";
+    }
+
+    private static String leftPadZeros(String value, int length) {
+        String digits = value == null ? "" : value.trim();
+        if (digits.length() >= length) {
+            return digits.substring(digits.length() - length);
+        }
+        return "0".repeat(length - digits.length()) + digits;
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.businessLogic;
+
+import io.micrometer.core.instrument.Gauge;
+import org.example.network.FeSession;
+import org.example.network.NetworkManager;
+import org.example.util.ClientConfig;
+import org.example.util.ClientMetrics;
+import org.example.util.DurableQueue;
+import org.example.util.PackagerRegistry;
+import org.example.util.TimingWheel;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Envoi garanti (store-and-forward) des messages qui doivent parvenir au FE même après un redémarrage :
+ * annulations (0400/0420) et avis (0120/0220).
+ * <p>
+ * Chaque message est d'abord écrit dans une {@link DurableQueue} ({@code saf.file}) avec le nom du FE
+ * destinataire, puis envoyé une fois sur disque. Il n'est retiré de la file qu'à réception de sa réponse
+ * (0410, 0430, 0130, 0230). Sans réponse (ou sans session disponible vers ce FE), il est remis dans la
+ * file de relance, tenue par la {@link TimingWheel} des délais, avec un délai doublé à chaque échec ;
+ * les renvois portent le MTI de répétition (0401, 0421, 0121, 0221). Au démarrage, les messages restés
+ * en file sont renvoyés, en répétition puisqu'ils ont pu partir avant l'arrêt.
+ * Au-delà de {@code saf.maxAttempts} envois sans réponse (0 = sans limite), le message est abandonné et signalé.
+ */
+public class StoreAndForward {
+    private static final Set<String> FORWARDED_MTIS = Set.of("0120", "0220", "0400", "0420");
+
+    private final NetworkManager networkManager;
+    private final TransactionProcessor processor;
+    private final DurableQueue queue;
+    private final TimingWheel retryQueue;
+    private final long responseTimeoutMs;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final long maxRetryDelayMs;
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder redelivered = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    private static final class Message {
+        final long id;
+        final ISOMsg message;
+        final String endpoint;
+        final String mti;
+        int transmissions;
+        int retries;
+
+        Message(long id, ISOMsg message, String endpoint, String mti) {
+            this.id = id;
+            this.message = message;
+            this.endpoint = endpoint;
+            this.mti = mti;
+        }
+    }
+
+    public StoreAndForward(NetworkManager networkManager, TransactionProcessor processor, DurableQueue queue,
+                           TimingWheel retryQueue, long responseTimeoutMs, int maxAttempts, long retryDelayMs,
+                           long maxRetryDelayMs) {
+        if (maxAttempts < 0) {
+            throw new IllegalArgumentException("saf.maxAttempts ne peut pas être négatif : " + maxAttempts);
+        }
+        this.networkManager = networkManager;
+        this.processor = processor;
+        this.queue = queue;
+        this.retryQueue = retryQueue;
+        this.responseTimeoutMs = responseTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+        this.maxRetryDelayMs = maxRetryDelayMs;
+        Gauge.builder("iso.saf.pending", queue, DurableQueue::pendingCount)
+                .description("Messages store-and-forward en attente d'acquittement")
+                .register(ClientMetrics.registry());
+    }
+
+    /**
+     * File configurée par {@code saf.*}.
+     */
+    public static StoreAndForward fromConfig(NetworkManager networkManager, TransactionProcessor processor,
+                                             TimingWheel retryQueue) throws IOException {
+        DurableQueue queue = new DurableQueue("saf", Path.of(ClientConfig.getString("saf.file", "state/store-and-forward.log")),
+                ClientConfig.getInt("saf.maxBatch", 256), ClientConfig.getLong("saf.compactBytes", 16L * 1024 * 1024));
+        return new StoreAndForward(networkManager, processor, queue, retryQueue,
+                ClientConfig.getLong("saf.responseTimeoutMs", 10000),
+                ClientConfig.getInt("saf.maxAttempts", 0),
+                ClientConfig.getLong("saf.retryDelayMs", 1000),
+                ClientConfig.getLong("saf.maxRetryDelayMs", 30000));
+    }
+
+    /**
+     * Renvoie les messages restés en file lors du précédent arrêt.
+     */
+    public void start() {
+        for (DurableQueue.Entry entry : queue.recovered()) {
+            Message message;
+            try {
+                message = decode(entry);
+            } catch (IOException | ISOException e) {
+                System.err.println("Message store-and-forward " + entry.id() + " illisible, retiré de la file : " + e.getMessage());
+                queue.ack(entry.id());
+                continue;
+            }
+            // Peut-être déjà parti avant l'arrêt : renvoyé en répétition
+            message.transmissions = 1;
+            redelivered.increment();
+            System.out.println("Reprise du message " + message.mti + " de la Référence " + message.message.getString(37)
+                    + " vers " + message.endpoint);
+            send(message);
+        }
+    }
+
+    /**
+     * Enregistre le message sur disque puis l'envoie au FE {@code endpoint}, sans bloquer l'appelant.
+     */
+    public void submit(ISOMsg message, String endpoint) {
+        String mti;
+        byte[] payload;
+        try {
+            mti = message.getMTI();
+            if (!FORWARDED_MTIS.contains(mti)) {
+                throw new IllegalArgumentException("MTI non pris en charge en store-and-forward : " + mti);
+            }
+            payload = encode(message, endpoint);
+        } catch (ISOException e) {
+            System.err.println("Message store-and-forward impossible à enregistrer : " + e.getMessage());
+            return;
+        }
+        queue.add(payload).whenComplete((id, error) -> {
+            if (error != null) {
+                System.err.println("Message " + mti + " de la Référence " + message.getString(37)
+                        + " non enregistré, non envoyé : " + error.getMessage());
+                return;
+            }
+            stored.increment();
+            send(new Message(id, message, endpoint, mti));
+        });
+    }
+
+    private void send(Message message) {
+        FeSession session = networkManager.selectSessionOn(message.endpoint);
+        if (session == null) {
+            retryLater(message, "aucune session disponible vers " + message.endpoint);
+            return;
+        }
+        try {
+            message.message.setMTI(message.transmissions == 0 ? message.mti : repeatMti(message.mti));
+        } catch (ISOException e) {
+            session.getEndpoint().getCircuitBreaker().releasePermission();
+            abandon(message, e.getMessage());
+            return;
+        }
+        message.transmissions++;
+        processor.sendAsync(message.message, session, responseTimeoutMs).whenComplete((response, error) -> {
+            if (response != null) {
+                queue.ack(message.id);
+                acknowledged.increment();
+                System.out.println("Message " + message.mti + " de la Référence " + message.message.getString(37)
+                        + " acquitté par " + session + " (MTI " + mtiOf(response) + ", code " + response.getString(39) + ")");
+            } else if (maxAttempts > 0 && message.transmissions >= maxAttempts) {
+                abandon(message, message.transmissions + " envoi(s) sans réponse");
+            } else {
+                retryLater(message, error.getMessage());
+            }
+        });
+    }
+
+    private void retryLater(Message message, String reason) {
+        long delay = Math.min(maxRetryDelayMs, retryDelayMs << Math.min(message.retries, 20));
+        message.retries++;
+        System.err.println("Message " + message.mti + " de la Référence " + message.message.getString(37)
+                + " relancé dans " + delay + " ms (" + reason + ")");
+        retryQueue.schedule(() -> send(message), delay);
+    }
+
+    private void abandon(Message message, String reason) {
+        queue.ack(message.id);
+        abandoned.increment();
+        System.err.println("Message " + message.mti + " de la Référence " + message.message.getString(37)
+                + " abandonné : " + reason);
+    }
+
+    public String summary() {
+        return "Store-and-forward : " + stored.sum() + " message(s) enregistré(s), " + redelivered.sum()
+                + " repris au démarrage, " + acknowledged.sum() + " acquitté(s), " + abandoned.sum()
+                + " abandonné(s), " + queue.pendingCount() + " en attente.";
+    }
+
+    /**
+     * Ferme la file : les messages non acquittés seront renvoyés au prochain démarrage.
+     */
+    public void close() {
+        queue.close();
+        System.out.println(queue.summary());
+    }
+
+    /**
+     * Répétition : dernier chiffre du MTI à 1 (0400 → 0401, 0120 → 0121...).
+     */
+    private static String repeatMti(String mti) {
+        return mti.substring(0, 3) + "1";
+    }
+
+    private static byte[] encode(ISOMsg message, String endpoint) throws ISOException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(endpoint);
+            out.write(message.pack());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // flux en mémoire
+        }
+    }
+
+    private static Message decode(DurableQueue.Entry entry) throws IOException, ISOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.payload()));
+        String endpoint = in.readUTF();
+        ISOMsg message = new ISOMsg();
+        message.setPackager(PackagerRegistry.iso87());
+        message.unpack(in.readAllBytes());
+        return new Message(entry.id(), message, endpoint, message.getMTI());
+    }
+
+    private static String mtiOf(ISOMsg msg) {
+        try {
+            return msg.getMTI();
+        } catch (ISOException e) {
+            return "????";
+        }
+    }
+}
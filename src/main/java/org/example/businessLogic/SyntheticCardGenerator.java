@@ -0,0 +1,259 @@
+package org.example.businessLogic;
+
+import org.example.util.ClientConfig;
+import org.example.util.WeightedTable;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Population synthétique de cartes et de commerçants, générée à la volée sans fichier :
+ * <ul>
+ *   <li>carte : BIN tiré selon les poids configurés, numéro de compte dérivé de l'indice de la carte
+ *   (deux cartes distinctes n'ont jamais le même PAN), clé de Luhn, date d'expiration propre à la carte ;</li>
+ *   <li>Track 2 (champ 35) : {@code PAN=MMAA} suivi du code service, cohérent avec le PAN et
+ *   l'expiration du champ 14 (même format MMAA que celui attendu par le validateur) ;</li>
+ *   <li>montant (champ 4) : tranche tirée selon les poids, puis valeur uniforme dans la tranche ;</li>
+ *   <li>commerçant (champ 42) tiré avec une préférence pour les premiers (les « gros » commerçants),
+ *   son MCC (champ 18) tiré une fois pour toutes selon les poids, et un de ses terminaux (champ 41).</li>
+ * </ul>
+ * Tous les tirages d'une transaction dérivent uniquement de la graine et de la référence (SplitMix64) :
+ * le résultat ne dépend ni du thread ni de l'ordre d'exécution, deux exécutions avec la même graine
+ * produisent les mêmes transactions. Aucun état partagé n'est modifié hors compteur.
+ */
+public class SyntheticCardGenerator implements TransactionSource {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final String SERVICE_CODE = "101";
+    private static final int MAX_EXPIRY_MONTHS = 48;
+    // Impair et non multiple de 5 : premier avec 10^n, la multiplication modulo 10^n est une permutation
+    private static final long ACCOUNT_MULTIPLIER = 0x5DEECE66DL;
+    // Identifiant de terminal (champ 41) sur 8 chiffres
+    private static final long MAX_TERMINALS = 99_999_999L;
+
+    private final long seed;
+    private final long cards;
+    private final WeightedTable<Bin> bins;
+    private final WeightedTable<long[]> amountRanges;
+    private final WeightedTable<String> mccs;
+    private final int merchants;
+    private final int terminalsPerMerchant;
+    private final double merchantSkew;
+    private final YearMonth firstExpiry = YearMonth.now().plusMonths(1);
+    private final LongAdder generated = new LongAdder();
+
+    record Bin(String prefix, int panLength) {
+    }
+
+    public SyntheticCardGenerator(long seed, long cards, String bins, String amounts, String mccs,
+                                  int merchants, int terminalsPerMerchant, double merchantSkew) {
+        if (cards < 1 || merchants < 1 || terminalsPerMerchant < 1 || merchantSkew < 1) {
+            throw new IllegalArgumentException("Population synthétique invalide : " + cards + " cartes, "
+                    + merchants + " commerçants, " + terminalsPerMerchant + " terminaux par commerçant, biais " + merchantSkew);
+        }
+        if ((long) merchants * terminalsPerMerchant > MAX_TERMINALS) {
+            throw new IllegalArgumentException(merchants + " commerçants de " + terminalsPerMerchant
+                    + " terminaux dépassent les " + MAX_TERMINALS + " terminaux distincts du champ 41 (8 chiffres).");
+        }
+        this.seed = seed;
+        this.cards = cards;
+        this.bins = WeightedTable.parse(bins, SyntheticCardGenerator::parseBin);
+        this.amountRanges = WeightedTable.parse(amounts, SyntheticCardGenerator::parseAmountRange);
+        this.mccs = WeightedTable.parse(mccs, value -> value);
+        this.merchants = merchants;
+        this.terminalsPerMerchant = terminalsPerMerchant;
+        this.merchantSkew = merchantSkew;
+        List<Bin> binValues = this.bins.getValues();
+        for (int i = 0; i < binValues.size(); i++) {
+            Bin bin = binValues.get(i);
+            long accounts = pow10(bin.panLength() - bin.prefix().length() - 1);
+            if (accounts < cards) {
+                throw new IllegalArgumentException("Le BIN " + bin.prefix() + " (PAN de " + bin.panLength()
+                        + " chiffres) ne permet que " + accounts + " cartes distinctes.");
+            }
+            // Deux BIN dont l'un prolonge l'autre, à longueur de PAN égale, peuvent produire le même PAN
+            for (int j = i + 1; j < binValues.size(); j++) {
+                Bin other = binValues.get(j);
+                if (bin.panLength() == other.panLength()
+                        && (bin.prefix().startsWith(other.prefix()) || other.prefix().startsWith(bin.prefix()))) {
+                    throw new IllegalArgumentException("Les BIN " + bin.prefix() + " et " + other.prefix()
+                            + " se recouvrent (PAN de " + bin.panLength() + " chiffres) : leurs cartes pourraient partager un PAN.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Générateur configuré par les clés {@code synthetic.*}, ou null si {@code synthetic.enabled} est faux.
+     */
+    public static SyntheticCardGenerator fromConfig() {
+        if (!ClientConfig.getBoolean("synthetic.enabled", false)) {
+            return null;
+        }
+        SyntheticCardGenerator generator = new SyntheticCardGenerator(
+                ClientConfig.getLong("synthetic.seed", 1),
+                ClientConfig.getLong("synthetic.cards", 1_000_000),
+                ClientConfig.getString("synthetic.bins", "400738:16:1"),
+                ClientConfig.getString("synthetic.amounts", "100-10000:1"),
+                ClientConfig.getString("synthetic.mccs", "5411:1"),
+                ClientConfig.getInt("synthetic.merchants", 1000),
+                ClientConfig.getInt("synthetic.terminalsPerMerchant", 2),
+                Double.parseDouble(ClientConfig.getString("synthetic.merchantSkew", "1.5")));
+        System.out.println("Population synthétique : " + generator.cards + " cartes, " + generator.merchants
+                + " commerçants, graine " + generator.seed);
+        return generator;
+    }
+
+    @Override
+    public boolean fill(long sequence, ISOMsg request) throws ISOException {
+        long state = mix(seed ^ (sequence * GOLDEN_GAMMA));
+
+        long card = Long.remainderUnsigned(state = next(state), cards);
+        String pan = panOf(card);
+        String expiry = expiryOf(card);
+        request.set(2, pan);
+        request.set(14, expiry);
+        request.set(35, pan + '=' + expiry + SERVICE_CODE);
+
+        long[] range = amountRanges.pick(state = next(state));
+        long amount = range[0] + Long.remainderUnsigned(state = next(state), range[1] - range[0] + 1);
+        request.set(4, digits(amount, 12));
+
+        int merchant = skewedIndex(state = next(state), merchants, merchantSkew);
+        int terminal = merchant * terminalsPerMerchant + (int) Long.remainderUnsigned(next(state), terminalsPerMerchant);
+        request.set(18, mccs.pick(mix(seed + merchant * GOLDEN_GAMMA)));
+        request.set(41, digits(terminal + 1, 8));
+        request.set(42, digits(merchant + 1, 15));
+
+        generated.increment();
+        return true;
+    }
+
+    @Override
+    public String summary() {
+        return "Population synthétique : " + generated.sum() + " transaction(s) générée(s).";
+    }
+
+    /**
+     * PAN de la carte {@code card} : BIN propre à la carte, puis numéro de compte obtenu par une permutation
+     * de l'indice (multiplication par un nombre premier avec 10, modulo 10^n), puis clé de Luhn.
+     */
+    String panOf(long card) {
+        Bin bin = bins.pick(mix(seed - card * GOLDEN_GAMMA));
+        int accountLength = bin.panLength() - bin.prefix().length() - 1;
+        long modulus = pow10(accountLength);
+        long account = (mulMod(card, ACCOUNT_MULTIPLIER, modulus) + Math.floorMod(seed, modulus)) % modulus;
+
+        char[] pan = new char[bin.panLength()];
+        bin.prefix().getChars(0, bin.prefix().length(), pan, 0);
+        writeDigits(pan, bin.prefix().length(), accountLength, account);
+        pan[pan.length - 1] = luhnCheckDigit(pan, pan.length - 1);
+        return new String(pan);
+    }
+
+    private String expiryOf(long card) {
+        YearMonth expiry = firstExpiry.plusMonths(Long.remainderUnsigned(mix(seed + card), MAX_EXPIRY_MONTHS));
+        char[] mmyy = new char[4];
+        writeDigits(mmyy, 0, 2, expiry.getMonthValue());
+        writeDigits(mmyy, 2, 2, expiry.getYear() % 100);
+        return new String(mmyy);
+    }
+
+    static char luhnCheckDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubled = true; // le chiffre le plus à droite du compte est doublé (la clé viendra après)
+        for (int i = length - 1; i >= 0; i--) {
+            int d = digits[i] - '0';
+            if (doubled) {
+                d *= 2;
+                if (d > 9) d -= 9;
+            }
+            sum += d;
+            doubled = !doubled;
+        }
+        return (char) ('0' + (10 - sum % 10) % 10);
+    }
+
+    /**
+     * Indice dans [0, size) favorisant les petits indices : u^skew, avec u uniforme dans [0, 1).
+     */
+    private static int skewedIndex(long random, int size, double skew) {
+        double u = (random >>> 11) * 0x1.0p-53;
+        return (int) Math.min(size - 1, (long) (Math.pow(u, skew) * size));
+    }
+
+    private static String digits(long value, int length) {
+        char[] chars = new char[length];
+        writeDigits(chars, 0, length, value);
+        return new String(chars);
+    }
+
+    private static void writeDigits(char[] dest, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            dest[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * (a * b) mod m sans dépassement pour m < 2^62 (le produit direct dépasse 64 bits dès 10^10 cartes).
+     */
+    private static long mulMod(long a, long b, long m) {
+        long result = 0;
+        a %= m;
+        b %= m;
+        while (b > 0) {
+            if ((b & 1) == 1) {
+                result = (result + a) % m;
+            }
+            a = (a << 1) % m;
+            b >>= 1;
+        }
+        return result;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private static long next(long state) {
+        return mix(state + GOLDEN_GAMMA);
+    }
+
+    /**
+     * Fonction de mélange de SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static Bin parseBin(String spec) {
+        String[] parts = spec.split(":");
+        if (parts.length != 2 || parts[0].isEmpty() || !parts[0].chars().allMatch(c -> c >= '0' && c <= '9')) {
+            throw new IllegalArgumentException("BIN invalide (bin:longueurPan attendu) : " + spec);
+        }
+        int panLength = Integer.parseInt(parts[1]);
+        if (panLength < 13 || panLength > 19 || panLength - parts[0].length() < 2) {
+            throw new IllegalArgumentException("Longueur de PAN invalide pour le BIN " + parts[0] + " : " + panLength);
+        }
+        return new Bin(parts[0], panLength);
+    }
+
+    private static long[] parseAmountRange(String spec) {
+        String[] parts = spec.split("-");
+        long min = Long.parseLong(parts[0]);
+        long max = parts.length > 1 ? Long.parseLong(parts[1]) : min;
+        if (parts.length > 2 || min < 0 || max < min || max > 999_999_999_999L) {
+            throw new IllegalArgumentException("Tranche de montant invalide (min-max attendu) : " + spec);
+        }
+        return new long[]{min, max};
+    }
+}
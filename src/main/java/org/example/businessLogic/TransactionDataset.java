@@ -0,0 +1,189 @@
+package org.example.businessLogic;
+
+import org.example.util.ClientConfig;
+import org.example.util.MappedCsvReader;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Jeu de données de test (cartes, montants, MCC, terminaux...) lu en continu dans un fichier CSV
+ * de taille quelconque, via {@link MappedCsvReader}.
+ * <p>
+ * L'en-tête du fichier reprend les noms de colonnes du template ({@code auth_template.txt}) ou
+ * directement des numéros de champ ISO ({@code 43}), dans n'importe quel ordre et pas forcément
+ * tous : chaque ligne ne remplace dans la demande que les champs de ses colonnes non vides, le reste
+ * venant du template. STAN et référence sont toujours attribués par le générateur.
+ * <p>
+ * En fin de fichier la lecture reprend au début ({@code dataset.loop}). Avec une fenêtre de
+ * mélange ({@code dataset.shuffleWindow} lignes), chaque ligne est tirée au hasard parmi les
+ * prochaines lignes du fichier : l'ordre varie sans charger le fichier, pour une mémoire bornée.
+ * <p>
+ * Les threads du générateur se partagent le fichier : seule la prise de l'enregistrement brut suivant
+ * se fait sous verrou, le découpage CSV de la ligne se fait en parallèle par chaque thread.
+ */
+public class TransactionDataset implements TransactionSource {
+    private static final int NO_FIELD = 0;
+    private static final Pattern FIELD_NUMBER = Pattern.compile("\\d{1,3}");
+
+    private final MappedCsvReader reader;
+    private final int[] columnFields;
+    private final boolean loop;
+    private final byte[][] shuffleBuffer;
+    private final Random random;
+    private int buffered;
+    private long rowsRead;
+
+    public TransactionDataset(Path file, String[] templateHeader, boolean loop, int shuffleWindow, long seed)
+            throws IOException {
+        this.reader = new MappedCsvReader(file);
+        try {
+            this.columnFields = mapColumns(reader.getHeader(), templateHeader);
+        } catch (RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+        this.loop = loop;
+        this.shuffleBuffer = new byte[Math.max(shuffleWindow, 0)][];
+        this.random = new Random(seed);
+        while (buffered < shuffleBuffer.length) {
+            byte[] record = readRecord();
+            if (record == null) {
+                break;
+            }
+            shuffleBuffer[buffered++] = record;
+        }
+    }
+
+    /**
+     * Jeu de données configuré par {@code dataset.file}, ou null si aucun fichier n'est configuré.
+     */
+    public static TransactionDataset fromConfig(String[] templateHeader) throws IOException {
+        String file = ClientConfig.getString("dataset.file", "");
+        if (file.isBlank()) {
+            return null;
+        }
+        TransactionDataset dataset = new TransactionDataset(Path.of(file), templateHeader,
+                ClientConfig.getBoolean("dataset.loop", true),
+                ClientConfig.getInt("dataset.shuffleWindow", 0),
+                ClientConfig.getLong("dataset.shuffleSeed", System.nanoTime()));
+        System.out.println("Jeu de données : " + file);
+        return dataset;
+    }
+
+    /**
+     * Ligne suivante (dans l'ordre du fichier, ou tirée dans la fenêtre de mélange).
+     * @return null si le fichier est épuisé et que la lecture ne boucle pas.
+     */
+    public String[] nextRow() throws IOException {
+        byte[] record = nextRecord();
+        return record != null ? MappedCsvReader.parse(record) : null;
+    }
+
+    private synchronized byte[] nextRecord() throws IOException {
+        if (shuffleBuffer.length == 0) {
+            return readRecord();
+        }
+        if (buffered == 0) {
+            return null;
+        }
+        int index = random.nextInt(buffered);
+        byte[] record = shuffleBuffer[index];
+        byte[] replacement = readRecord();
+        if (replacement != null) {
+            shuffleBuffer[index] = replacement;
+        } else {
+            shuffleBuffer[index] = shuffleBuffer[--buffered];
+            shuffleBuffer[buffered] = null;
+        }
+        return record;
+    }
+
+    /**
+     * Reporte dans la demande les champs non vides de la ligne.
+     */
+    public void apply(String[] row, ISOMsg request) throws ISOException {
+        int columns = Math.min(row.length, columnFields.length);
+        for (int column = 0; column < columns; column++) {
+            int field = columnFields[column];
+            if (field != NO_FIELD && !row[column].isEmpty()) {
+                request.set(field, row[column]);
+            }
+        }
+    }
+
+    @Override
+    public boolean fill(long sequence, ISOMsg request) throws IOException, ISOException {
+        String[] row = nextRow();
+        if (row == null) {
+            return false;
+        }
+        apply(row, request);
+        return true;
+    }
+
+    public synchronized long getRowsRead() {
+        return rowsRead;
+    }
+
+    @Override
+    public String summary() {
+        return "Jeu de données : " + getRowsRead() + " ligne(s) lue(s).";
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private byte[] readRecord() throws IOException {
+        byte[] record = reader.nextRaw();
+        if (record == null && loop && rowsRead > 0) {
+            reader.rewind();
+            record = reader.nextRaw();
+        }
+        if (record != null) {
+            rowsRead++;
+        }
+        return record;
+    }
+
+    /**
+     * Champ ISO de chaque colonne du jeu de données, retrouvé par nom de colonne du template.
+     */
+    private static int[] mapColumns(String[] header, String[] templateHeader) {
+        int[] fields = new int[header.length];
+        for (int column = 0; column < header.length; column++) {
+            String name = header[column].trim();
+            int field;
+            if (FIELD_NUMBER.matcher(name).matches()) {
+                field = Integer.parseInt(name);
+                if (field < 2 || field > 128) {
+                    throw new IllegalArgumentException("Numéro de champ invalide dans le jeu de données : " + name);
+                }
+            } else {
+                int templateColumn = indexOfIgnoreCase(templateHeader, name);
+                if (templateColumn < 0) {
+                    throw new IllegalArgumentException("Colonne inconnue dans le jeu de données : " + name);
+                }
+                field = IsoMessageBuilder.fieldForColumn(templateColumn);
+            }
+            // STAN et référence servent au rapprochement des réponses : ils restent ceux du générateur
+            fields[column] = field == 11 || field == 37 ? NO_FIELD : field;
+        }
+        return fields;
+    }
+
+    private static int indexOfIgnoreCase(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].trim().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
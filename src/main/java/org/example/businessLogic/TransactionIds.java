@@ -0,0 +1,62 @@
+package org.example.businessLogic;
+
+import org.example.util.SequenceAllocator;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Identifiants des demandes émises, uniques même avec plusieurs threads d'envoi :
+ * <ul>
+ *   <li>STAN (champ 11) : 000001 à 999999, puis retour à 000001 ;</li>
+ *   <li>RRN (champ 37) au format YDDDHHnnnnnn : dernier chiffre de l'année, jour de l'année,
+ *   heure locale, puis numéro de séquence 000000 à 999999.</li>
+ * </ul>
+ * Les deux séquences sont persistées (voir {@link SequenceAllocator}) : un redémarrage ne réémet
+ * pas les numéros déjà utilisés.
+ */
+public class TransactionIds {
+    private final SequenceAllocator stans;
+    private final SequenceAllocator rrnSequence;
+    private volatile HourPrefix hourPrefix = new HourPrefix(-1, 0);
+
+    private record HourPrefix(long epochHour, long prefix) {
+    }
+
+    public TransactionIds(SequenceAllocator stans, SequenceAllocator rrnSequence) {
+        this.stans = stans;
+        this.rrnSequence = rrnSequence;
+    }
+
+    public static TransactionIds fromConfig() {
+        return new TransactionIds(
+                SequenceAllocator.fromConfig("stan", 1, 999_999),
+                SequenceAllocator.fromConfig("rrn", 0, 999_999));
+    }
+
+    public int nextStan() {
+        return (int) stans.next();
+    }
+
+    /**
+     * RRN sur 12 chiffres, sous forme numérique (écrit tel quel dans l'image packée, ou formaté sur 12 chiffres).
+     */
+    public long nextRrn() {
+        return prefixForCurrentHour() * 1_000_000L + rrnSequence.next();
+    }
+
+    /**
+     * Partie YDDDHH, recalculée une fois par heure.
+     */
+    private long prefixForCurrentHour() {
+        long epochHour = System.currentTimeMillis() / 3_600_000L;
+        HourPrefix current = hourPrefix;
+        if (current.epochHour() != epochHour) {
+            LocalDateTime now = LocalDateTime.now(ZoneId.systemDefault());
+            current = new HourPrefix(epochHour,
+                    (now.getYear() % 10) * 100_000L + now.getDayOfYear() * 100L + now.getHour());
+            hourPrefix = current;
+        }
+        return current.prefix();
+    }
+}
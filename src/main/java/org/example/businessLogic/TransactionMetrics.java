@@ -0,0 +1,70 @@
+package org.example.businessLogic;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.util.ClientMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Compteurs des transactions par FE et par MTI : demandes envoyées, puis issue de chacune
+ * (approuvée, refusée, expirée, en erreur). Les compteurs d'un couple FE / MTI sont créés au premier
+ * usage puis retrouvés par deux lectures de tables sans verrou ; l'incrément ne bloque pas l'envoi.
+ */
+class TransactionMetrics {
+    private static final String APPROVED = "00";
+
+    private final Map<String, Map<String, Counters>> countersByEndpoint = new ConcurrentHashMap<>();
+
+    private static final class Counters {
+        final Counter sent;
+        final Counter approved;
+        final Counter declined;
+        final Counter timedOut;
+        final Counter failed;
+
+        Counters(String endpoint, String mti) {
+            MeterRegistry registry = ClientMetrics.registry();
+            this.sent = Counter.builder("iso.transactions.sent").tags("endpoint", endpoint, "mti", mti).register(registry);
+            this.approved = completed(registry, endpoint, mti, "approved");
+            this.declined = completed(registry, endpoint, mti, "declined");
+            this.timedOut = completed(registry, endpoint, mti, "timeout");
+            this.failed = completed(registry, endpoint, mti, "error");
+        }
+
+        private static Counter completed(MeterRegistry registry, String endpoint, String mti, String outcome) {
+            return Counter.builder("iso.transactions.completed")
+                    .tags("endpoint", endpoint, "mti", mti, "outcome", outcome)
+                    .register(registry);
+        }
+    }
+
+    void sent(String endpoint, String mti) {
+        counters(endpoint, mti).sent.increment();
+    }
+
+    /**
+     * Issue d'une demande : réponse (approuvée si code 00), ou expiration / erreur.
+     */
+    void completed(String endpoint, String mti, String responseCode, Throwable error) {
+        Counters counters = counters(endpoint, mti);
+        if (responseCode != null) {
+            (APPROVED.equals(responseCode) ? counters.approved : counters.declined).increment();
+        } else if (error instanceof TimeoutException) {
+            counters.timedOut.increment();
+        } else {
+            counters.failed.increment();
+        }
+    }
+
+    private Counters counters(String endpoint, String mti) {
+        Map<String, Counters> byMti = countersByEndpoint.get(endpoint);
+        if (byMti == null) {
+            byMti = countersByEndpoint.computeIfAbsent(endpoint, e -> new ConcurrentHashMap<>());
+        }
+        Counters counters = byMti.get(mti);
+        return counters != null ? counters : byMti.computeIfAbsent(mti, m -> new Counters(endpoint, m));
+    }
+}
@@ -1,58 +1,96 @@
 package org.example.businessLogic;
 
+import org.example.network.CircuitBreaker;
+import org.example.network.FeSession;
+import org.example.network.FrameCodec;
 import org.example.network.NetworkManager;
+import org.example.network.NioConnection;
+import org.example.util.CsvParser;
+import org.example.util.TimingWheel;
+import org.example.util.TraceLog;
+import org.jpos.iso.ISOException;
 import org.jpos.iso.ISOMsg;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
-import java.net.Socket;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 public class TransactionProcessor {
+    private static final long BLOCKING_RESPONSE_TIMEOUT_MS = 30000;
+    private static final String AUTH_REQUEST_MTI = "0100";
+    // Référence fictive pour la validation initiale du template (sans consommer de RRN)
+    private static final String TEMPLATE_CHECK_REFERENCE = "000000000001";
+
     private final NetworkManager networkManager;
     private final TransactionValidator validator = new TransactionValidator();
-    private final String[] templateFields;
-    private int referenceCounter;  // pour incrémenter la référence
-    private boolean sendToFE1Next = true;
+    private final AuthRequestTemplate authTemplate;
+    private final FrameCodec codec = FrameCodec.getDefault();
+    private final boolean templateValid;
+    // Valeurs des demandes du mode charge (jeu de données ou générateur), ou null pour rejouer le template
+    private final TransactionSource source;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    // STAN et RRN des demandes émises, partagés par tous les threads d'envoi
+    private final TransactionIds ids;
+
+    // Délais de réponse des requêtes en vol et file de relance du store-and-forward
+    private final TimingWheel timeouts = TimingWheel.fromConfig("timeouts");
+    private final PendingRequestTable pendingRequests = new PendingRequestTable(timeouts);
+    // Annulations et avis enregistrés sur disque puis envoyés jusqu'à acquittement
+    private final StoreAndForward storeAndForward;
+    // Annulation des 0100 restées sans réponse, ou null si désactivée
+    private final ReversalManager reversals;
+    private final LatencyRecorder latencyRecorder;
+    private final TransactionMetrics metrics = new TransactionMetrics();
+    // Bilan du mode multiplexé, ou null s'il n'a pas été lancé
+    private volatile PipelineOutcomes pipelineOutcomes;
 
 
-    public TransactionProcessor(NetworkManager networkManager, String csvTemplatePath, int startingReference) throws Exception {
+    public TransactionProcessor(NetworkManager networkManager, String csvTemplatePath,
+                                LatencyRecorder latencyRecorder) throws Exception {
         this.networkManager = networkManager;
-        this.templateFields = loadTemplate(csvTemplatePath);
-        if (templateFields.length < 28) {
-            throw new IllegalArgumentException("Le template CSV doit contenir au moins 28 champs");
-        }
-        this.referenceCounter = startingReference;
+        this.latencyRecorder = latencyRecorder;
+        TemplateFile templateFile = loadTemplate(csvTemplatePath);
+        this.authTemplate = new AuthRequestTemplate(templateFile.fields());
+        // Envoi rapide : seuls STAN, référence et date/heure varient, le reste du template est validé une fois
+        this.templateValid = validator.validateTransaction(authTemplate.newRequest(null, TEMPLATE_CHECK_REFERENCE));
+        this.ids = TransactionIds.fromConfig();
+        this.storeAndForward = StoreAndForward.fromConfig(networkManager, this, timeouts);
+        this.reversals = ReversalManager.fromConfig(ids, storeAndForward);
+        this.source = loadSource(templateFile.header());
+        networkManager.setAuthorizationHandler(this::onAuthorizationResponse);
+        // Messages restés en file au dernier arrêt : relancés dès qu'une session vers leur FE est prête
+        storeAndForward.start();
     }
 
     public void startContinuousSend() {
         while (true) {
             try {
-                // Générer la référence incrémentée, formatée sur 12 chiffres par exemple
-                String currentReference = String.format("%012d", referenceCounter++);
-
-                // Copier les champs du template
-                String[] champs = new String[28];
-                System.arraycopy(templateFields, 0, champs, 0, 28);
-
-                // Remplacer la référence (champ 37 ISO, index 7)
-                champs[16] = currentReference;
-
-                // Optionnel : garder STAN fixe, ou à gérer ici si besoin
-
-                ISOMsg msg = IsoMessageBuilder.createAuthRequest(champs);
+                ISOMsg msg = newRequest();
 
                 if (!validator.validateTransaction(msg)) {
                     System.err.println("Validation échouée. Message non envoyé.");
                     continue;
                 }
 
-                boolean ok = sendToFE1Next ? trySend(msg, "FE1") || trySend(msg, "FE2")
-                        : trySend(msg, "FE2") || trySend(msg, "FE1");
+                // Session la moins chargée, puis bascule sur un autre FE si la demande n'a pas pu partir.
+                // Une demande partie mais restée sans réponse n'est pas renvoyée ailleurs : elle est annulée.
+                FeSession session = networkManager.selectSession(null);
+                SendOutcome outcome = session != null ? trySend(msg, session) : SendOutcome.NOT_SENT;
+                if (outcome == SendOutcome.NOT_SENT) {
+                    FeSession backup = networkManager.selectSession(session != null ? session.getEndpoint().getName() : null);
+                    if (backup != null && backup != session) {
+                        outcome = trySend(msg, backup);
+                    }
+                }
 
-                if (ok) {
-                    sendToFE1Next = !sendToFE1Next;
-                } else {
-                    System.err.println("Échec de l'envoi à FE1 et FE2.");
+                if (outcome == SendOutcome.NOT_SENT) {
+                    System.err.println("Échec de l'envoi sur tous les FE.");
                 }
 
                 Thread.sleep(2000);
@@ -63,36 +101,340 @@ public class TransactionProcessor {
         }
     }
 
-    private String[] loadTemplate(String filePath) throws Exception {
+    /**
+     * Envoi multiplexé : jusqu'à {@code maxInFlight} autorisations en vol en même temps,
+     * réparties sur les sessions FE les moins chargées, sans attente entre deux envois.
+     * Chaque requête porte son propre STAN afin que la réponse puisse lui être rattachée.
+     * Les issues sont comptées (boucle d'événements ou thread de la roue : aucune écriture console)
+     * et leur bilan est affiché à la fermeture ; le détail des messages passe par la trace.
+     */
+    public void startPipelinedSend(int maxInFlight, long responseTimeoutMs) {
+        if (!templateValid) {
+            System.err.println("Validation du template échouée. Aucun message envoyé.");
+            return;
+        }
+        Semaphore window = new Semaphore(maxInFlight);
+        PipelineOutcomes outcomes = new PipelineOutcomes();
+        pipelineOutcomes = outcomes;
+        while (true) {
+            try {
+                window.acquire();
+                FeSession session = networkManager.selectSession(null);
+                if (session == null) {
+                    window.release();
+                    System.err.println("Aucune session FE disponible.");
+                    Thread.sleep(1000);
+                    continue;
+                }
+                sendPacked(ids.nextStan(), ids.nextRrn(), session, responseTimeoutMs, System.nanoTime())
+                        .whenComplete((response, error) -> {
+                            window.release();
+                            outcomes.record(response, error);
+                        });
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Envoie la requête sans bloquer sur la session FE la moins chargée.
+     */
+    public CompletableFuture<ISOMsg> sendAsync(ISOMsg msg, long responseTimeoutMs) {
+        FeSession session = networkManager.selectSession(null);
+        if (session == null) {
+            return CompletableFuture.failedFuture(new IOException("Aucune session FE disponible."));
+        }
+        return sendAsync(msg, session, responseTimeoutMs);
+    }
+
+    /**
+     * Envoie la requête sur la session donnée sans bloquer.
+     * Le future est complété par la réponse correspondante (STAN + référence),
+     * ou exceptionnellement à l'expiration du délai.
+     */
+    public CompletableFuture<ISOMsg> sendAsync(ISOMsg msg, FeSession session, long responseTimeoutMs) {
+        return sendAsync(msg, session, responseTimeoutMs, System.nanoTime());
+    }
+
+    /**
+     * La latence enregistrée court de {@code startNanos} à la réponse (ou à l'échec) :
+     * le générateur de charge y passe l'instant d'envoi prévu plutôt que l'instant réel.
+     */
+    private CompletableFuture<ISOMsg> sendAsync(ISOMsg msg, FeSession session, long responseTimeoutMs, long startNanos) {
+        byte[] frame;
+        try {
+            frame = codec.encode(msg.pack());
+        } catch (ISOException e) {
+            // Erreur locale : le FE n'est pas en cause
+            session.getEndpoint().getCircuitBreaker().releasePermission();
+            return CompletableFuture.failedFuture(e);
+        }
+        String mti = mtiOf(msg);
+        Runnable onTimeout = reversals != null && AUTH_REQUEST_MTI.equals(mti)
+                ? () -> reversals.reverse(msg, session.getEndpoint().getName()) : null;
+        return sendFrame(PendingRequestTable.keyOf(msg), frame, session, mti, onTimeout, responseTimeoutMs, startNanos);
+    }
+
+    /**
+     * Chemin rapide sans ISOMsg : la demande est écrite directement dans la trame à émettre, en-tête de longueur
+     * puis image packée du template (voir {@link AuthRequestTemplate#writePacked}), que la connexion met en file
+     * sans la recopier. La trame est la seule allocation de l'envoi, avec la clé de rapprochement.
+     * Seuls STAN, référence et seconde d'émission sont retenus pour une éventuelle annulation.
+     */
+    private CompletableFuture<ISOMsg> sendPacked(int stan, long reference, FeSession session, long responseTimeoutMs,
+                                                 long startNanos) {
+        int headerLength = codec.getHeaderLength();
+        byte[] frame = new byte[headerLength + authTemplate.getPackedLength()];
+        codec.writeHeader(frame, 0, authTemplate.getPackedLength());
+        long sentSecond = authTemplate.writePacked(frame, headerLength, stan, reference);
+        Runnable onTimeout = reversals != null
+                ? () -> reversals.reverse(() -> authTemplate.sentRequest(stan, reference, sentSecond),
+                        session.getEndpoint().getName()) : null;
+        return sendFrame(authTemplate.correlationKey(frame, headerLength), frame, session, AUTH_REQUEST_MTI,
+                onTimeout, responseTimeoutMs, startNanos);
+    }
+
+    /**
+     * Envoi d'une trame complète (en-tête + demande packée), enregistrée sous {@code key} dans la table des requêtes en vol.
+     * {@code onTimeout} (annulation de la demande, ou null) est exécuté si la réponse n'arrive pas dans le délai.
+     */
+    private CompletableFuture<ISOMsg> sendFrame(String key, byte[] frame, FeSession session, String mti,
+                                                Runnable onTimeout, long responseTimeoutMs, long startNanos) {
+        NioConnection connection = session.getConnection();
+        if (connection == null || !session.isReady()) {
+            session.getEndpoint().getCircuitBreaker().recordFailure();
+            return CompletableFuture.failedFuture(new IOException("Connexion pour " + session + " non disponible."));
+        }
+        CompletableFuture<ISOMsg> future = track(key, session, mti, onTimeout, responseTimeoutMs, startNanos);
+        if (!future.isDone()) {
+            if (connection.sendFrame(frame)) {
+                int headerLength = codec.getHeaderLength();
+                TraceLog.sent(connection.getLabel(), frame, headerLength, frame.length - headerLength);
+                metrics.sent(session.getEndpoint().getName(), mti);
+            } else {
+                pendingRequests.fail(key, new IOException("Échec de l'envoi à " + session));
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Enregistre la requête en attente de réponse et prépare la comptabilité de session, de latence et des métriques.
+     * L'issue (réponse, ou expiration / échec d'envoi) alimente le disjoncteur de l'endpoint ;
+     * à l'expiration, {@code onTimeout} est exécuté sur le thread de la roue des délais et doit donc rester bref.
+     */
+    private CompletableFuture<ISOMsg> track(String key, FeSession session, String mti, Runnable onTimeout,
+                                            long responseTimeoutMs, long startNanos) {
+        CircuitBreaker breaker = session.getEndpoint().getCircuitBreaker();
+        CompletableFuture<ISOMsg> future;
+        try {
+            future = pendingRequests.register(key, responseTimeoutMs);
+        } catch (IllegalStateException e) {
+            breaker.releasePermission();
+            return CompletableFuture.failedFuture(e);
+        }
+        session.requestStarted();
+        String endpoint = session.getEndpoint().getName();
+        future.whenComplete((response, error) -> {
+            session.requestCompleted();
+            if (response != null) {
+                breaker.recordSuccess();
+            } else {
+                breaker.recordFailure();
+                if (onTimeout != null && error instanceof TimeoutException) {
+                    onTimeout.run();
+                }
+            }
+            String responseCode = response != null ? response.getString(39) : null;
+            metrics.completed(endpoint, mti, responseCode, error);
+            latencyRecorder.record(endpoint, mti, responseCode, System.nanoTime() - startNanos);
+        });
+        return future;
+    }
+
+    /**
+     * Réponses d'autorisation aiguillées par le lecteur de chaque connexion FE.
+     */
+    private void onAuthorizationResponse(ISOMsg response) {
+        if (!pendingRequests.complete(response)) {
+            System.err.println("Réponse sans requête en attente (STAN " + response.getString(11)
+                    + ", Référence " + response.getString(37) + ").");
+        }
+    }
+
+    /**
+     * Construit et envoie la transaction de rang {@code sequence} sur la session la moins chargée :
+     * template complété par la source configurée s'il y en a une, sinon template seul par le chemin rapide.
+     * STAN et RRN sont attribués ici, au moment de l'envoi.
+     * Appelé depuis les threads du générateur de charge ; {@code intendedNanos} est l'instant d'envoi prévu,
+     * point de départ de la latence enregistrée.
+     */
+    public CompletableFuture<ISOMsg> sendGenerated(long sequence, long responseTimeoutMs, long intendedNanos) {
+        if (source != null) {
+            return sendFromSource(sequence, responseTimeoutMs, intendedNanos);
+        }
+        if (!templateValid) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Validation du template échouée."));
+        }
+        FeSession session = networkManager.selectSession(null);
+        if (session == null) {
+            return CompletableFuture.failedFuture(new IOException("Aucune session FE disponible."));
+        }
+        return sendPacked(ids.nextStan(), ids.nextRrn(), session, responseTimeoutMs, intendedNanos);
+    }
+
+    /**
+     * Demande construite à partir du template et de la source de transactions, validée puis envoyée.
+     */
+    private CompletableFuture<ISOMsg> sendFromSource(long sequence, long responseTimeoutMs, long intendedNanos) {
+        ISOMsg msg;
+        byte[] frame;
+        try {
+            msg = newRequest();
+            if (!source.fill(sequence, msg)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Source de transactions épuisée."));
+            }
+            if (!validator.validateTransaction(msg)) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("Validation échouée pour la Référence " + msg.getString(37)));
+            }
+            // Packé avant le choix de la session : une demande invalide n'est pas imputée au FE
+            frame = codec.encode(msg.pack());
+        } catch (IOException | ISOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        FeSession session = networkManager.selectSession(null);
+        if (session == null) {
+            return CompletableFuture.failedFuture(new IOException("Aucune session FE disponible."));
+        }
+        ISOMsg original = msg;
+        Runnable onTimeout = reversals != null ? () -> reversals.reverse(original, session.getEndpoint().getName()) : null;
+        return sendFrame(PendingRequestTable.keyOf(msg), frame, session, AUTH_REQUEST_MTI, onTimeout,
+                responseTimeoutMs, intendedNanos);
+    }
+
+    /**
+     * Ferme la source de transactions éventuelle, la file store-and-forward et la roue des délais, et affiche
+     * le bilan du mode multiplexé et des annulations (une seule fois : appelé en fin de charge puis par le hook d'arrêt).
+     */
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        PipelineOutcomes outcomes = pipelineOutcomes;
+        if (outcomes != null) {
+            System.out.println(outcomes.summary());
+        }
+        if (reversals != null) {
+            reversals.close();
+            System.out.println(reversals.summary());
+        }
+        System.out.println(storeAndForward.summary());
+        storeAndForward.close();
+        timeouts.stop();
+        if (source == null) {
+            return;
+        }
+        try {
+            System.out.println(source.summary());
+            source.close();
+        } catch (IOException e) {
+            System.err.println("Erreur à la fermeture de la source de transactions : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Jeu de données ({@code dataset.file}) en priorité, sinon générateur synthétique ({@code synthetic.enabled}).
+     */
+    private static TransactionSource loadSource(String[] templateHeader) throws IOException {
+        TransactionSource dataset = TransactionDataset.fromConfig(templateHeader);
+        if (dataset != null) {
+            return dataset;
+        }
+        return SyntheticCardGenerator.fromConfig();
+    }
+
+    private static String mtiOf(ISOMsg msg) {
+        try {
+            return msg.getMTI();
+        } catch (ISOException e) {
+            return "????";
+        }
+    }
+
+    /**
+     * Copie du template avec un nouveau STAN (6 chiffres) et un nouveau RRN (champ 37, 12 chiffres).
+     */
+    private ISOMsg newRequest() throws ISOException {
+        return authTemplate.newRequest(String.format("%06d", ids.nextStan()), String.format("%012d", ids.nextRrn()));
+    }
+
+    private record TemplateFile(String[] header, String[] fields) {
+    }
+
+    /**
+     * En-tête et première ligne du template ; les champs entre guillemets (43, 48...) sont découpés
+     * selon les règles CSV et débarrassés de leurs guillemets.
+     */
+    private TemplateFile loadTemplate(String filePath) throws Exception {
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            reader.readLine(); // ignore header
+            String header = reader.readLine();
             String line = reader.readLine();
-            if (line == null) throw new IllegalArgumentException("Le fichier template est vide.");
-            String[] fields = line.split(",");
+            if (header == null || line == null) throw new IllegalArgumentException("Le fichier template est vide.");
+            String[] fields = CsvParser.parse(line);
             if (fields.length < 28) {
                 throw new IllegalArgumentException("Le fichier template doit contenir au moins 28 champs.");
             }
-            return fields;
+            return new TemplateFile(CsvParser.parse(header), fields);
         }
     }
 
-    private boolean trySend(ISOMsg msg, String serverName) {
+    private SendOutcome trySend(ISOMsg msg, FeSession session) {
+        String serverName = session.getName();
         try {
-            Socket socket = networkManager.getSocketForServer(serverName);
-            if (socket == null) {
-                System.err.println("Socket pour " + serverName + " non disponible.");
-                return false;
-            }
-
-            TcpSender sender = new TcpSender(socket);
-            sender.sendMessage(msg);
-            ISOMsg response = sender.receiveMessage();
+            // La réponse est lue par le dispatcher de la connexion puis rapprochée par STAN/Référence
+            sendAsync(msg, session, BLOCKING_RESPONSE_TIMEOUT_MS).get();
 
             System.out.println(">> Réponse reçue de " + serverName + " pour Référence " + msg.getString(37));
-            return response != null;
-        } catch (Exception e) {
-            System.err.println("Erreur envoi à " + serverName + ": " + e.getMessage());
-            return false;
+            return SendOutcome.ANSWERED;
+        } catch (ExecutionException e) {
+            System.err.println("Erreur envoi à " + serverName + ": " + e.getCause().getMessage());
+            return e.getCause() instanceof TimeoutException ? SendOutcome.UNANSWERED : SendOutcome.NOT_SENT;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SendOutcome.UNANSWERED; // demande peut-être partie : pas de renvoi
+        }
+    }
+
+    private enum SendOutcome { ANSWERED, UNANSWERED, NOT_SENT }
+
+    /**
+     * Compteurs sans verrou des issues du mode multiplexé : réponses (dont approuvées), expirations et échecs d'envoi.
+     */
+    private static final class PipelineOutcomes {
+        private final LongAdder answered = new LongAdder();
+        private final LongAdder approved = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        void record(ISOMsg response, Throwable error) {
+            if (response != null) {
+                answered.increment();
+                if ("00".equals(response.getString(39))) {
+                    approved.increment();
+                }
+            } else if (error instanceof TimeoutException) {
+                timedOut.increment();
+            } else {
+                failed.increment();
+            }
+        }
+
+        String summary() {
+            return "Envoi multiplexé : " + answered.sum() + " réponse(s) dont " + approved.sum() + " approuvée(s), "
+                    + timedOut.sum() + " sans réponse, " + failed.sum() + " en échec.";
         }
     }
 }
@@ -0,0 +1,30 @@
+package org.example.businessLogic;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source des valeurs variables (carte, montant, commerçant...) des demandes du mode charge,
+ * appliquées sur une copie du template. Appelée depuis plusieurs threads.
+ */
+public interface TransactionSource extends Closeable {
+
+    /**
+     * Renseigne dans {@code request} les champs de la transaction de rang {@code sequence}
+     * (0 pour la première) ; STAN et RRN sont déjà attribués.
+     * @return false si la source est épuisée.
+     */
+    boolean fill(long sequence, ISOMsg request) throws IOException, ISOException;
+
+    /**
+     * Description affichée en fin de charge.
+     */
+    String summary();
+
+    @Override
+    default void close() throws IOException {
+    }
+}
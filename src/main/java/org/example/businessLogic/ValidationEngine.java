@@ -0,0 +1,82 @@
+package org.example.businessLogic;
+
+import org.jpos.iso.ISOMsg;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moteur de règles de validation, déclarées par numéro de champ ISO.
+ * Toutes les règles sont évaluées en une passe et tous les échecs sont rapportés ;
+ * un message valide ne provoque aucune allocation.
+ */
+public class ValidationEngine {
+
+    /**
+     * Contrôle de format d'une valeur de champ présente (jamais null).
+     */
+    @FunctionalInterface
+    public interface FieldCheck {
+        boolean test(String value);
+    }
+
+    /**
+     * Règle sur un champ : un champ absent est en échec.
+     */
+    public record Rule(int field, String description, FieldCheck check) {
+    }
+
+    /**
+     * Échec d'une règle pour un message donné.
+     */
+    public record Failure(Rule rule, String value) {
+        @Override
+        public String toString() {
+            return "Champ " + rule.field() + " : " + rule.description() + " (valeur : " + value + ")";
+        }
+    }
+
+    private final Rule[] rules;
+
+    private ValidationEngine(List<Rule> rules) {
+        this.rules = rules.toArray(new Rule[0]);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return la liste des règles en échec, vide (non allouée) si le message est valide.
+     */
+    public List<Failure> validate(ISOMsg msg) {
+        List<Failure> failures = List.of();
+        for (Rule rule : rules) {
+            String value = msg.getString(rule.field());
+            boolean valid = value != null && rule.check().test(value);
+            if (!valid) {
+                if (failures.isEmpty()) {
+                    failures = new ArrayList<>();
+                }
+                failures.add(new Failure(rule, value));
+            }
+        }
+        return failures;
+    }
+
+    public static class Builder {
+        private final List<Rule> rules = new ArrayList<>();
+
+        /**
+         * Champ obligatoire devant satisfaire le contrôle.
+         */
+        public Builder require(int field, String description, FieldCheck check) {
+            rules.add(new Rule(field, description, check));
+            return this;
+        }
+
+        public ValidationEngine build() {
+            return new ValidationEngine(rules);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.network;
+
+import org.example.util.CaptureJournal;
+import org.example.util.ClientConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rejeu d'un journal de capture ({@link CaptureJournal}) : les messages émis lors de la capture sont
+ * renvoyés tels quels, Sign-On et echo tests compris, en respectant les écarts de temps d'origine
+ * divisés par la vitesse demandée (0 = au plus vite).
+ * <p>
+ * Chaque connexion capturée (libellé {@code FE1}, {@code FE1-2}...) est rouverte vers l'endpoint de même nom
+ * de {@code fe.endpoints}, à surcharger pour viser un FE de test. Les réponses reçues sont comptées et,
+ * si {@code capture.enabled} est vrai, enregistrées dans un nouveau journal pour comparaison avec la capture.
+ * <p>
+ * Lancement : {@code java -cp ... org.example.network.CaptureReplay <répertoire de capture> [vitesse]}.
+ */
+public class CaptureReplay {
+    private final Map<String, FeEndpoint> endpoints = new HashMap<>();
+    private final Map<String, NioConnection> connections = new HashMap<>();
+    private final NioEngine engine;
+    private final double speed;
+    private final long connectTimeoutMs = ClientConfig.getLong("fe.connectTimeoutMs", 5000);
+
+    private final LongAdder received = new LongAdder();
+    private long replayed;
+    private long skipped;
+    private long capturedInbound;
+    private long maxLagNanos;
+
+    public CaptureReplay(List<FeEndpoint> endpoints, double speed, CaptureJournal journal) throws IOException {
+        if (speed < 0) {
+            throw new IllegalArgumentException("Vitesse de rejeu négative : " + speed);
+        }
+        for (FeEndpoint endpoint : endpoints) {
+            this.endpoints.put(endpoint.getName(), endpoint);
+        }
+        this.speed = speed;
+        this.engine = new NioEngine("CaptureReplay-NioEngine", journal);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage : CaptureReplay <répertoire de capture> [vitesse (1 = rythme d'origine, 0 = au plus vite)]");
+            System.exit(2);
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        CaptureReplay replay = new CaptureReplay(FeEndpoint.fromConfig(), speed, CaptureJournal.fromConfig());
+        try {
+            replay.replay(Path.of(args[0]));
+            Thread.sleep(ClientConfig.getLong("capture.replayDrainMs", 2000));
+            System.out.println(replay.summary());
+        } finally {
+            replay.shutdown();
+        }
+    }
+
+    /**
+     * Renvoie les messages émis du journal {@code directory}, au rythme d'origine divisé par la vitesse.
+     */
+    public void replay(Path directory) throws IOException {
+        try (CaptureJournal.Reader reader = new CaptureJournal.Reader(directory)) {
+            long firstNanos = -1;
+            long startNanos = 0;
+            CaptureJournal.Frame frame;
+            while ((frame = reader.next()) != null) {
+                if (!frame.outbound()) {
+                    capturedInbound++;
+                    continue;
+                }
+                if (firstNanos < 0) {
+                    firstNanos = frame.nanos();
+                    startNanos = System.nanoTime();
+                    System.out.println("CaptureReplay: Replaying capture started at "
+                            + Instant.ofEpochMilli(reader.getBaseEpochMillis()) + " at speed " + speed);
+                }
+                if (speed > 0) {
+                    long due = startNanos + (long) ((frame.nanos() - firstNanos) / speed);
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    maxLagNanos = Math.max(maxLagNanos, -wait);
+                }
+                NioConnection connection = connectionFor(frame.label());
+                if (connection != null && connection.send(frame.message())) {
+                    replayed++;
+                } else {
+                    skipped++;
+                }
+            }
+        }
+    }
+
+    public String summary() {
+        return "CaptureReplay: replayed=" + replayed + " skipped=" + skipped + " received=" + received.sum()
+                + " (captured inbound=" + capturedInbound + ") maxLag=" + TimeUnit.NANOSECONDS.toMillis(maxLagNanos) + "ms";
+    }
+
+    public void shutdown() {
+        for (NioConnection connection : connections.values()) {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+        engine.shutdown();
+    }
+
+    /**
+     * Connexion ouverte au premier message de la connexion capturée {@code label} ; null si l'endpoint
+     * est inconnu ou injoignable (les messages de cette connexion sont alors sautés).
+     */
+    private NioConnection connectionFor(String label) {
+        if (connections.containsKey(label)) {
+            NioConnection connection = connections.get(label);
+            return connection != null && connection.isOpen() ? connection : null;
+        }
+        FeEndpoint endpoint = endpoints.get(label);
+        if (endpoint == null && label.lastIndexOf('-') > 0) {
+            endpoint = endpoints.get(label.substring(0, label.lastIndexOf('-')));
+        }
+        NioConnection connection = null;
+        if (endpoint == null) {
+            System.err.println("CaptureReplay: No endpoint named after connection " + label + ", its frames are skipped.");
+        } else {
+            try {
+                connection = engine.connect(label, new InetSocketAddress(endpoint.getHost(), endpoint.getPort()),
+                        new ResponseCounter(), connectTimeoutMs).join();
+                System.out.println("CaptureReplay: Connection " + label + " opened to " + connection.getRemoteAddress());
+            } catch (CompletionException e) {
+                System.err.println("CaptureReplay: Cannot connect " + label + " to " + endpoint.getHost() + ":"
+                        + endpoint.getPort() + ": " + e.getCause());
+            }
+        }
+        connections.put(label, connection);
+        return connection;
+    }
+
+    private final class ResponseCounter implements FrameHandler {
+
+        @Override
+        public void onFrame(NioConnection connection, byte[] frame, int length) {
+            received.increment();
+        }
+
+        @Override
+        public void onClosed(NioConnection connection, Throwable cause) {
+            System.err.println("CaptureReplay: Connection " + connection.getLabel() + " closed by peer"
+                    + (cause != null ? " (" + cause.getMessage() + ")" : ""));
+        }
+    }
+}
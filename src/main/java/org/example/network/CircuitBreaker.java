@@ -0,0 +1,135 @@
+package org.example.network;
+
+import org.example.util.ClientConfig;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Disjoncteur d'un {@link FeEndpoint}, alimenté par les échecs de connexion, de Sign-On et les
+ * autorisations restées sans réponse.
+ * <ul>
+ *   <li>CLOSED : trafic normal ; {@code failureThreshold} échecs consécutifs ouvrent le disjoncteur.</li>
+ *   <li>OPEN : l'endpoint est écarté par le routeur sans aucune tentative, pendant {@code openMs}.</li>
+ *   <li>HALF_OPEN : une seule requête d'essai ; un succès referme, un échec rouvre.</li>
+ * </ul>
+ * Un Sign-On réussi referme directement le disjoncteur : la liaison est rétablie.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAtNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // Requête d'essai en cours à l'état HALF_OPEN
+    private final AtomicBoolean trialInFlight = new AtomicBoolean(false);
+
+    public CircuitBreaker(String name, int failureThreshold, long openMs) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold doit être positif : " + failureThreshold);
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+    }
+
+    /**
+     * Disjoncteur configuré par {@code fe.breaker.failureThreshold} et {@code fe.breaker.openMs}.
+     */
+    public static CircuitBreaker fromConfig(String name) {
+        return new CircuitBreaker(name,
+                ClientConfig.getInt("fe.breaker.failureThreshold", 5),
+                ClientConfig.getLong("fe.breaker.openMs", 10000));
+    }
+
+    /**
+     * Indique, sans rien réserver, si l'endpoint peut recevoir du trafic : fermé, ou ouvert depuis
+     * assez longtemps pour tenter un essai, ou à moitié ouvert sans essai en cours.
+     */
+    public boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openedAtNanos >= openNanos;
+            case HALF_OPEN -> !trialInFlight.get();
+        };
+    }
+
+    /**
+     * Réserve le passage d'une requête vers l'endpoint retenu par le routeur.
+     * À l'état OPEN échu, passe à HALF_OPEN et réserve la requête d'essai.
+     * @return false si la requête ne doit pas être envoyée (ouvert, ou essai déjà en cours).
+     */
+    public boolean tryAcquirePermission() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAtNanos < openNanos) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                trialInFlight.set(false);
+            }
+            if (state == State.HALF_OPEN) {
+                return trialInFlight.compareAndSet(false, true);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Rend la permission obtenue par {@link #tryAcquirePermission()} sans résultat à enregistrer :
+     * la requête n'est pas partie pour une raison locale (message impossible à packer...).
+     */
+    public void releasePermission() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight.set(false);
+        }
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state != State.CLOSED) {
+            synchronized (this) {
+                if (state != State.CLOSED) {
+                    transitionTo(State.CLOSED);
+                }
+                trialInFlight.set(false);
+            }
+        }
+    }
+
+    public void recordFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state;
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            synchronized (this) {
+                if (state != State.OPEN) {
+                    openedAtNanos = System.nanoTime();
+                    transitionTo(State.OPEN);
+                }
+                trialInFlight.set(false);
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void transitionTo(State next) {
+        // Appelé sous le verrou du disjoncteur
+        State previous = state;
+        state = next;
+        System.out.println("CircuitBreaker[" + name + "]: " + previous + " -> " + next
+                + (next == State.OPEN ? " after " + consecutiveFailures.get() + " consecutive failure(s)" : ""));
+    }
+}
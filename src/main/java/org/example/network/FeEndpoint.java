@@ -0,0 +1,69 @@
+package org.example.network;
+
+import org.example.util.ClientConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Front-end d'autorisation joignable par le simulateur (nom, hôte, port),
+ * avec son disjoncteur partagé par toutes ses sessions.
+ */
+public class FeEndpoint {
+    private static final String DEFAULT_ENDPOINTS = "FE1:localhost:5000,FE2:localhost:6000";
+
+    private final String name;
+    private final String host;
+    private final int port;
+    private final CircuitBreaker circuitBreaker;
+
+    public FeEndpoint(String name, String host, int port) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.circuitBreaker = CircuitBreaker.fromConfig(name);
+    }
+
+    /**
+     * Liste configurée par {@code fe.endpoints}, au format {@code nom:hôte:port,nom:hôte:port,...}.
+     */
+    public static List<FeEndpoint> fromConfig() {
+        return parseList(ClientConfig.getString("fe.endpoints", DEFAULT_ENDPOINTS));
+    }
+
+    public static List<FeEndpoint> parseList(String spec) {
+        List<FeEndpoint> endpoints = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Endpoint FE invalide (nom:hôte:port attendu) : " + entry);
+            }
+            endpoints.add(new FeEndpoint(parts[0], parts[1], Integer.parseInt(parts[2])));
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("Aucun endpoint FE configuré.");
+        }
+        return endpoints;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + host + ":" + port + ")";
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.network;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Session signée (connexion + Sign-On) vers un {@link FeEndpoint}.
+ * Un endpoint peut porter plusieurs sessions ; chacune a son PingManager et son compteur de requêtes en vol.
+ */
+public class FeSession {
+    private final FeEndpoint endpoint;
+    private final String name;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Protège la connexion, l'état de Sign-On et le PingManager
+    final Object lock = new Object();
+    private volatile NioConnection connection;
+    private volatile boolean signedOn = false;
+    PingManager pingManager;
+    final SessionMetrics metrics;
+    // Boucle de connexion : tentative en cours, échecs consécutifs et échéance de la prochaine tentative (System.nanoTime)
+    boolean connecting;
+    int connectFailures;
+    long nextConnectNanos = System.nanoTime();
+
+    FeSession(FeEndpoint endpoint, String name) {
+        this.endpoint = endpoint;
+        this.name = name;
+        this.metrics = new SessionMetrics(this);
+    }
+
+    public FeEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Connexion ouverte et Sign-On effectué : la session peut recevoir des autorisations.
+     */
+    public boolean isReady() {
+        NioConnection current = connection;
+        return signedOn && current != null && current.isOpen();
+    }
+
+    public NioConnection getConnection() {
+        return connection;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void requestCompleted() {
+        inFlight.decrementAndGet();
+    }
+
+    boolean isSignedOn() {
+        return signedOn;
+    }
+
+    void setConnection(NioConnection connection) {
+        this.connection = connection;
+    }
+
+    void setSignedOn(boolean signedOn) {
+        this.signedOn = signedOn;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
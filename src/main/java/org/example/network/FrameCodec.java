@@ -0,0 +1,78 @@
+package org.example.network;
+
+import org.example.util.ClientConfig;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Format de trame TCP : en-tête binaire big-endian de 2 ou 4 octets portant la longueur
+ * du message ISO, suivi du message lui-même.
+ */
+public class FrameCodec {
+    public static final int MAX_FRAME_LENGTH = 65535;
+
+    private static final FrameCodec DEFAULT = new FrameCodec(ClientConfig.getInt("frame.headerLength", 2));
+
+    private final int headerLength;
+
+    public FrameCodec(int headerLength) {
+        if (headerLength != 2 && headerLength != 4) {
+            throw new IllegalArgumentException("Longueur d'en-tête de trame non supportée : " + headerLength + " (2 ou 4 attendu)");
+        }
+        this.headerLength = headerLength;
+    }
+
+    /**
+     * Codec configuré par {@code frame.headerLength}.
+     */
+    public static FrameCodec getDefault() {
+        return DEFAULT;
+    }
+
+    public int getHeaderLength() {
+        return headerLength;
+    }
+
+    /**
+     * Construit la trame complète (en-tête + message) en une seule écriture.
+     */
+    public byte[] encode(byte[] message) {
+        checkLength(message.length);
+        byte[] frame = new byte[headerLength + message.length];
+        writeHeader(frame, 0, message.length);
+        System.arraycopy(message, 0, frame, headerLength, message.length);
+        return frame;
+    }
+
+    public void writeHeader(byte[] target, int offset, int length) {
+        for (int i = headerLength - 1; i >= 0; i--) {
+            target[offset + i] = (byte) length;
+            length >>>= 8;
+        }
+    }
+
+    public int readHeader(byte[] source, int offset) {
+        int length = 0;
+        for (int i = 0; i < headerLength; i++) {
+            length = (length << 8) | (source[offset + i] & 0xFF);
+        }
+        return length;
+    }
+
+    /**
+     * Lecture de l'en-tête à une position absolue, sans déplacer la position du tampon.
+     */
+    public int readHeader(ByteBuffer source, int offset) {
+        int length = 0;
+        for (int i = 0; i < headerLength; i++) {
+            length = (length << 8) | (source.get(offset + i) & 0xFF);
+        }
+        return length;
+    }
+
+    void checkLength(int length) {
+        if (length <= 0 || length > MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("Longueur de trame invalide : " + length);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.network;
+
+/**
+ * Reçoit les événements d'une {@link NioConnection}. Les méthodes sont appelées
+ * depuis la boucle d'événements du {@link NioEngine} et ne doivent donc pas bloquer.
+ */
+public interface FrameHandler {
+
+    /**
+     * Une trame complète a été reçue ; {@code frame} est réutilisé après le retour de l'appel.
+     */
+    void onFrame(NioConnection connection, byte[] frame, int length);
+
+    /**
+     * La connexion a été perdue (fermeture par le serveur ou erreur d'E/S).
+     * N'est pas appelé lorsque la fermeture est demandée par le client.
+     */
+    void onClosed(NioConnection connection, Throwable cause);
+}
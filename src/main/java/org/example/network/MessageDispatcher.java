@@ -0,0 +1,70 @@
+package org.example.network;
+
+import org.example.util.PackagerRegistry;
+import org.example.util.TraceLog;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Traitement des trames reçues sur une connexion FE, appelé par la boucle d'événements du {@link NioEngine}.
+ * Chaque message est aiguillé selon son MTI et son champ 70, soit vers la gestion réseau
+ * (0810 de sign-on / echo test), soit vers le rapprochement des autorisations.
+ */
+public class MessageDispatcher implements FrameHandler {
+
+    private final String serverName;
+    private final BiConsumer<NioConnection, ISOMsg> networkHandler;
+    private final Consumer<ISOMsg> authorizationHandler;
+    private final Consumer<NioConnection> onConnectionLost;
+
+    public MessageDispatcher(String serverName,
+                             BiConsumer<NioConnection, ISOMsg> networkHandler,
+                             Consumer<ISOMsg> authorizationHandler,
+                             Consumer<NioConnection> onConnectionLost) {
+        this.serverName = serverName;
+        this.networkHandler = networkHandler;
+        this.authorizationHandler = authorizationHandler;
+        this.onConnectionLost = onConnectionLost;
+    }
+
+    @Override
+    public void onFrame(NioConnection connection, byte[] frame, int length) {
+        TraceLog.received(connection.getLabel(), frame, 0, length);
+
+        ISOMsg msg = new ISOMsg();
+        try {
+            msg.setPackager(PackagerRegistry.iso87());
+            // Tampon réutilisé par la connexion : seuls les length premiers octets appartiennent à ce message
+            msg.unpack(Arrays.copyOf(frame, length));
+        } catch (ISOException e) {
+            System.err.println("Dispatcher[" + serverName + "]: Unreadable frame of " + length + " bytes skipped: " + e.getMessage());
+            return;
+        }
+
+        try {
+            if (isNetworkManagement(msg)) {
+                networkHandler.accept(connection, msg);
+            } else {
+                authorizationHandler.accept(msg);
+            }
+        } catch (Exception e) {
+            System.err.println("Dispatcher[" + serverName + "]: Error while dispatching message: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void onClosed(NioConnection connection, Throwable cause) {
+        System.err.println("Dispatcher[" + serverName + "]: Connection lost"
+                + (cause != null ? " (" + cause.getMessage() + ")" : "") + ", reporting connection loss.");
+        onConnectionLost.accept(connection);
+    }
+
+    static boolean isNetworkManagement(ISOMsg msg) throws ISOException {
+        String mti = msg.getMTI();
+        return (mti != null && mti.startsWith("08")) || msg.hasField(70);
+    }
+}
@@ -1,62 +1,110 @@
 package org.example.network;
 
+import org.apache.logging.log4j.Logger;
+import org.example.util.CaptureJournal;
+import org.example.util.ClientConfig;
 import org.jpos.iso.ISOMsg;
 import org.jpos.iso.ISOException;
-import org.jpos.iso.packager.ISO87APackager;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.Socket;
-import java.net.SocketException;
-import java.net.SocketTimeoutException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 public class NetworkManager {
-    private static final String SERVER_HOST_FE1 = "localhost";
-    private static final int SERVER_PORT_FE1 = 5000;
-
-    private static final String SERVER_HOST_FE2 = "localhost";
-    private static final int SERVER_PORT_FE2 = 6000;
-
-    private static final int RECONNECTION_DELAY_MS = 5000;
-    private static final int SIGN_ON_RESPONSE_TIMEOUT_MS = 10000;
+    private static final Logger pingLog = PingLogger.logger();
+    // Période maximale entre deux passages de la boucle de connexion
+    private static final int CONNECTION_CHECK_INTERVAL_MS = 1000;
     private static final int MAX_PING_RECONNECT_ATTEMPTS = 5;
 
-    private Socket socketFE1;
-    private Socket socketFE2;
-    private PingManager pingManagerFE1;
-    private PingManager pingManagerFE2;
+    private final NioEngine engine;
+    // Planificateur partagé par toutes les sessions : echo tests, délais de reconnexion, délais de réponse
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "NetworkManager-Scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    private final List<FeEndpoint> endpoints;
+    private final List<FeSession> sessions;
+    private final Map<String, FeSession> sessionsByName = new LinkedHashMap<>();
+    private final Map<String, List<FeSession>> sessionsByEndpoint = new LinkedHashMap<>();
+    private final SessionRouter router = new SessionRouter();
+    private final ReconnectBackoff backoff = ReconnectBackoff.fromConfig();
+    private final long connectTimeoutMs = ClientConfig.getLong("fe.connectTimeoutMs", 5000);
+    private final long signOnTimeoutMs = ClientConfig.getLong("fe.signOnTimeoutMs", 10000);
+    // Signalé à chaque session nouvellement signée (voir awaitReady)
+    private final Object readiness = new Object();
 
-    private volatile boolean fe1SignedOn = false;
-    private volatile boolean fe2SignedOn = false;
     private final AtomicBoolean running = new AtomicBoolean(true);
 
-    private final Object fe1Lock = new Object();
-    private final Object fe2Lock = new Object();
+    // Réponses 0810 attendues pour un Sign-On en cours, par connexion
+    private final Map<NioConnection, CompletableFuture<ISOMsg>> pendingSignOns = new ConcurrentHashMap<>();
+
+    private volatile Consumer<ISOMsg> authorizationHandler = msg ->
+            System.err.println("NetworkManager: No authorization handler registered, dropping response with STAN " + msg.getString(11));
 
+    /**
+     * Endpoints lus dans {@code fe.endpoints}, {@code fe.sessionsPerEndpoint} sessions par endpoint.
+     */
+    public NetworkManager() throws IOException {
+        this(FeEndpoint.fromConfig(), ClientConfig.getInt("fe.sessionsPerEndpoint", 1));
+    }
+
+    public NetworkManager(List<FeEndpoint> endpoints, int sessionsPerEndpoint) throws IOException {
+        if (sessionsPerEndpoint < 1) {
+            throw new IllegalArgumentException("Au moins une session par endpoint est requise : " + sessionsPerEndpoint);
+        }
+        this.endpoints = List.copyOf(endpoints);
+        List<FeSession> created = new ArrayList<>();
+        for (FeEndpoint endpoint : this.endpoints) {
+            SessionMetrics.registerEndpoint(endpoint);
+            for (int i = 1; i <= sessionsPerEndpoint; i++) {
+                String name = sessionsPerEndpoint == 1 ? endpoint.getName() : endpoint.getName() + "-" + i;
+                FeSession session = new FeSession(endpoint, name);
+                created.add(session);
+                sessionsByName.put(name, session);
+                sessionsByEndpoint.computeIfAbsent(endpoint.getName(), n -> new ArrayList<>()).add(session);
+            }
+        }
+        this.sessions = Collections.unmodifiableList(created);
+        // Trames brutes enregistrées pour rejeu si capture.enabled (voir CaptureReplay)
+        this.engine = new NioEngine("NetworkManager-NioEngine", CaptureJournal.fromConfig());
+    }
 
     public void start() {
         new Thread(() -> {
             while (running.get()) {
                 try {
-                    boolean fe1NeedsConnect;
-                    boolean fe2NeedsConnect;
-
-                    synchronized (fe1Lock) { fe1NeedsConnect = !fe1SignedOn; }
-                    synchronized (fe2Lock) { fe2NeedsConnect = !fe2SignedOn; }
-
-                    if (fe1NeedsConnect) {
-
-                        connectAndSignOn("FE1", SERVER_HOST_FE1, SERVER_PORT_FE1);
+                    // Connexion + Sign-On lancés sans attendre pour toutes les sessions arrivées à l'échéance
+                    // de leur délai de reconnexion : au démarrage toutes les sessions se signent en parallèle,
+                    // et un endpoint injoignable ne retarde pas les autres
+                    for (FeSession session : sessions) {
+                        if (!running.get()) break;
+                        boolean needsConnect;
+                        synchronized (session.lock) {
+                            needsConnect = !session.isSignedOn() && !session.connecting
+                                    && System.nanoTime() - session.nextConnectNanos >= 0;
+                            session.connecting |= needsConnect;
+                        }
+                        if (needsConnect) {
+                            connectAndSignOnAsync(session);
+                        }
                     }
-                    synchronized (fe2Lock) { fe2NeedsConnect = !fe2SignedOn; }
-                    if (fe2NeedsConnect) {
 
-                        connectAndSignOn("FE2", SERVER_HOST_FE2, SERVER_PORT_FE2);
-                    }
-
-                    Thread.sleep(RECONNECTION_DELAY_MS);
+                    Thread.sleep(millisUntilNextConnect());
                 } catch (InterruptedException e) {
                     System.out.println("NetworkManager client main loop interrupted.");
                     running.set(false);
@@ -64,7 +112,7 @@ public class NetworkManager {
                 } catch (Exception e) {
                     System.err.println("NetworkManager: Unhandled error in connection loop: " + e.getMessage());
                     e.printStackTrace();
-                    try { Thread.sleep(RECONNECTION_DELAY_MS); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); running.set(false); }
+                    try { Thread.sleep(CONNECTION_CHECK_INTERVAL_MS); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); running.set(false); }
                 }
             }
             System.out.println("NetworkManager client main loop finished.");
@@ -72,137 +120,274 @@ public class NetworkManager {
     }
 
     /**
-     * Callback pour PingManager pour signaler une perte de connexion persistante.
-     * @param serverName Nom du serveur ("FE1" ou "FE2").
+     * Prochaine tentative de la boucle de connexion pour la session, après {@code failures} échecs consécutifs.
+     * Appelé sous {@code session.lock}.
      */
-    public void handlePersistentConnectionLoss(String serverName) {
-        Object lock = "FE1".equals(serverName) ? fe1Lock : fe2Lock;
-        synchronized (lock) {
-            System.out.println("NetworkManager: Received persistent connection failure report for " + serverName);
-            cleanupConnectionResource(serverName, false);
+    private void scheduleNextConnect(FeSession session, int failures) {
+        long delayMs = backoff.delayMillis(failures);
+        session.nextConnectNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        System.out.println("NetworkManager: Next connection attempt to " + session.getName() + " in " + delayMs
+                + "ms (" + failures + " consecutive failure(s)).");
+    }
+
+    /**
+     * Attente jusqu'à la prochaine échéance de reconnexion, bornée pour repérer rapidement les sessions perdues.
+     */
+    private long millisUntilNextConnect() {
+        long now = System.nanoTime();
+        long wait = CONNECTION_CHECK_INTERVAL_MS;
+        for (FeSession session : sessions) {
+            synchronized (session.lock) {
+                if (!session.isSignedOn() && !session.connecting) {
+                    wait = Math.min(wait, TimeUnit.NANOSECONDS.toMillis(session.nextConnectNanos - now));
+                }
+            }
         }
+        return Math.max(wait, 10);
     }
 
-    private Socket attemptConnection(String host, int port, int maxAttempts, String serverLabel) throws IOException {
-        int attempt = 0;
-        while (attempt < maxAttempts) {
-            attempt++;
-            try {
-                System.out.println("NetworkManager: Attempting connection to " + serverLabel + " (" + host + ":" + port + ") - Attempt " + attempt + "/" + maxAttempts);
-                Socket socket = new Socket(host, port);
-                System.out.println("NetworkManager: Successfully connected to " + serverLabel);
-                return socket;
-            } catch (IOException e) {
-                System.err.println("NetworkManager: Connection attempt " + attempt + " to " + serverLabel + " failed: " + e.getMessage());
-                if (attempt < maxAttempts) {
-                    try {
-                        Thread.sleep(RECONNECTION_DELAY_MS);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new IOException("Connection interrupted", e);
-                    }
+    /**
+     * Barrière de démarrage : attend que {@code minSessions} sessions soient signées (toutes si {@code minSessions}
+     * vaut 0 ou dépasse le nombre de sessions), au plus {@code timeoutMs}.
+     * @return true si le nombre de sessions requis est atteint.
+     */
+    public boolean awaitReady(int minSessions, long timeoutMs) throws InterruptedException {
+        int required = minSessions <= 0 ? sessions.size() : Math.min(minSessions, sessions.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (readiness) {
+            while (readySessionCount() < required) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
                 }
+                readiness.wait(remainingMs);
             }
         }
-        throw new IOException("Failed to connect to " + serverLabel + " after " + maxAttempts + " attempts");
+        return true;
+    }
+
+    public int readySessionCount() {
+        int ready = 0;
+        for (FeSession session : sessions) {
+            if (session.isReady()) ready++;
+        }
+        return ready;
+    }
+
+    private void signalReadiness() {
+        synchronized (readiness) {
+            readiness.notifyAll();
+        }
+    }
+
+    /**
+     * Enregistre le destinataire des réponses d'autorisation (0110, ...) lues sur les connexions FE.
+     */
+    public void setAuthorizationHandler(Consumer<ISOMsg> handler) {
+        this.authorizationHandler = handler;
+    }
+
+    public List<FeEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public List<FeSession> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Session prête ayant le moins de requêtes en vol, tous endpoints confondus (hors disjoncteurs ouverts).
+     * @param excludedEndpoint endpoint à écarter (bascule vers l'autre FE après un échec), ou null.
+     * @return null si aucune session n'est signée.
+     */
+    public FeSession selectSession(String excludedEndpoint) {
+        return router.select(sessions, excludedEndpoint);
+    }
+
+    /**
+     * Session prête la moins chargée d'un endpoint précis (ex : annulation renvoyée au FE de la demande d'origine).
+     * @return null si aucune session de cet endpoint n'est disponible.
+     */
+    public FeSession selectSessionOn(String endpointName) {
+        return router.select(sessionsByEndpoint.getOrDefault(endpointName, List.of()), null);
+    }
+
+    private FeSession sessionNamed(String serverName) {
+        FeSession session = sessionsByName.get(serverName);
+        if (session == null) {
+            throw new IllegalArgumentException("Unknown FE session: " + serverName);
+        }
+        return session;
     }
-    private void updateConnectionResources(String serverLabel, Socket socket, SignOnStatus status) {
-        if (status == SignOnStatus.SUCCESS) {
-            if ("FE1".equals(serverLabel)) {
-                synchronized (fe1Lock) {
-                    if (socketFE1 != null && socketFE1 != socket) {
-                        try { socketFE1.close(); } catch (IOException e) {}
+
+    /**
+     * Callback pour PingManager : ouvre une nouvelle connexion pour la session et refait le Sign-On, sans bloquer.
+     * En cas de succès la nouvelle connexion remplace l'ancienne, le PingManager courant est conservé.
+     * @return future complété par la nouvelle connexion, ou par null si la connexion ou le Sign-On a échoué.
+     */
+    public CompletableFuture<NioConnection> reconnectAsync(String serverName) {
+        FeSession session = sessionNamed(serverName);
+        return connectAsync(session)
+                .thenCompose(connection -> signOnAsync(connection, serverName).thenApply(status -> {
+                    if (status != SignOnStatus.SUCCESS) {
+                        connection.close();
+                        return null;
                     }
-                    socketFE1 = socket;
-                    fe1SignedOn = true;
-                    restartPingManager("FE1", socket);
-                }
-            } else {
-                synchronized (fe2Lock) {
-                    if (socketFE2 != null && socketFE2 != socket) {
-                        try { socketFE2.close(); } catch (IOException e) {}
+                    synchronized (session.lock) {
+                        System.out.println("NetworkManager: " + serverName + " reconnected by PingManager, switching to new connection.");
+                        NioConnection previous = session.getConnection();
+                        if (previous != null && previous != connection) {
+                            previous.close();
+                        }
+                        session.setConnection(connection);
+                        session.setSignedOn(true);
                     }
-                    socketFE2 = socket;
-                    fe2SignedOn = true;
-                    restartPingManager("FE2", socket);
-                }
-            }
-        } else {
-            closeSocket(socket);
-            if ("FE1".equals(serverLabel)) {
-                synchronized (fe1Lock) {
-                    fe1SignedOn = false;
-                }
-            } else {
-                synchronized (fe2Lock) {
-                    fe2SignedOn = false;
-                }
-            }
+                    signalReadiness();
+                    return connection;
+                }))
+                .exceptionally(e -> {
+                    pingLog.warn("NetworkManager: Reconnection to {} failed: {}", serverName, e.getMessage());
+                    return null;
+                })
+                .thenApply(connection -> {
+                    session.metrics.signOnAttempted(connection != null);
+                    return connection;
+                });
+    }
+
+    /**
+     * Fait échouer {@code future} par une TimeoutException s'il n'est pas complété dans le délai,
+     * à l'aide du planificateur partagé (pas de thread ni d'attente bloquante par requête).
+     */
+    static void failAfter(ScheduledExecutorService scheduler, CompletableFuture<?> future, long timeoutMs) {
+        ScheduledFuture<?> timeout = scheduler.schedule(
+                () -> future.completeExceptionally(new TimeoutException("No response within " + timeoutMs + "ms")),
+                timeoutMs, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> timeout.cancel(false));
+    }
+
+    /**
+     * Callback pour PingManager pour signaler une perte de connexion persistante.
+     * @param serverName Nom de la session (ex : "FE1" ou "FE1-2").
+     */
+    public void handlePersistentConnectionLoss(String serverName) {
+        FeSession session = sessionNamed(serverName);
+        synchronized (session.lock) {
+            System.out.println("NetworkManager: Received persistent connection failure report for " + serverName);
+            cleanupConnectionResource(session, false);
+            // La boucle de connexion reprend le délai là où le PingManager l'a laissé
+            session.connectFailures = MAX_PING_RECONNECT_ATTEMPTS;
+            scheduleNextConnect(session, session.connectFailures);
         }
     }
 
-    private void restartPingManager(String serverLabel, Socket socket) {
-        try {
-            if ("FE1".equals(serverLabel)) {
-                if (pingManagerFE1 != null) pingManagerFE1.stopSendingPing();
-                pingManagerFE1 = new PingManager(socket, serverLabel, this, MAX_PING_RECONNECT_ATTEMPTS);
-                pingManagerFE1.startSendingPing();
+    private CompletableFuture<NioConnection> connectAsync(FeSession session) {
+        FeEndpoint endpoint = session.getEndpoint();
+        System.out.println("NetworkManager: Attempting connection to " + session.getName() + " (" + endpoint.getHost() + ":" + endpoint.getPort() + ")");
+        return engine.connect(session.getName(),
+                        new InetSocketAddress(endpoint.getHost(), endpoint.getPort()),
+                        newDispatcher(session), connectTimeoutMs)
+                .whenComplete((connection, error) -> {
+                    if (error != null) {
+                        endpoint.getCircuitBreaker().recordFailure();
+                    } else {
+                        System.out.println("NetworkManager: Successfully connected to " + session.getName());
+                    }
+                });
+    }
+
+    /**
+     * Les 08xx vont au Sign-On en cours ou au PingManager, le reste au rapprochement des autorisations.
+     */
+    private MessageDispatcher newDispatcher(FeSession session) {
+        return new MessageDispatcher(session.getName(),
+                (connection, msg) -> routeNetworkMessage(session, connection, msg),
+                msg -> authorizationHandler.accept(msg),
+                connection -> onConnectionLost(session, connection));
+    }
+
+    private void updateConnectionResources(FeSession session, NioConnection connection, SignOnStatus status) {
+        synchronized (session.lock) {
+            if (status == SignOnStatus.SUCCESS && running.get()) {
+                NioConnection previous = session.getConnection();
+                if (previous != null && previous != connection) {
+                    previous.close();
+                }
+                session.setConnection(connection);
+                session.setSignedOn(true);
+                restartPingManager(session, connection);
             } else {
-                if (pingManagerFE2 != null) pingManagerFE2.stopSendingPing();
-                pingManagerFE2 = new PingManager(socket, serverLabel, this, MAX_PING_RECONNECT_ATTEMPTS);
-                pingManagerFE2.startSendingPing();
+                // Échec, ou Sign-On abouti après le début de l'arrêt
+                connection.close();
+                session.setSignedOn(false);
             }
-        } catch (IOException e) {
-            System.err.println("Failed to restart PingManager for " + serverLabel + ": " + e.getMessage());
-            cleanupConnectionResource(serverLabel, true);
         }
+        signalReadiness();
     }
-    private void connectAndSignOn(String preferredServerLabel, String host, int port) {
-        String otherServerLabel = "FE1".equals(preferredServerLabel) ? "FE2" : "FE1";
-        String host1 = preferredServerLabel.equals("FE1") ? SERVER_HOST_FE1 : SERVER_HOST_FE2;
-        int port1 = preferredServerLabel.equals("FE1") ? SERVER_PORT_FE1 : SERVER_PORT_FE2;
-        String host2 = otherServerLabel.equals("FE1") ? SERVER_HOST_FE1 : SERVER_HOST_FE2;
-        int port2 = otherServerLabel.equals("FE1") ? SERVER_PORT_FE1 : SERVER_PORT_FE2;
 
-        Socket connectedSocket = null;
-        String actualConnectedServerLabel = preferredServerLabel;
-        int maxAttempts = 5;
+    private void restartPingManager(FeSession session, NioConnection connection) {
+        // Sans thread propre, un PingManager ne coûte que ses échéances sur le planificateur partagé
+        if (session.pingManager != null) session.pingManager.stopSendingPing();
+        session.pingManager = new PingManager(connection, session.getName(), this, MAX_PING_RECONNECT_ATTEMPTS,
+                backoff, scheduler, session.metrics);
+        session.pingManager.startSendingPing();
+    }
 
-        try {
-            connectedSocket = attemptConnection(host1, port1, maxAttempts, preferredServerLabel);
-        } catch (IOException e) {
-            System.err.println("NetworkManager: Primary server " + preferredServerLabel + " unreachable. Switching to backup " + otherServerLabel);
-            try {
-                connectedSocket = attemptConnection(host2, port2, maxAttempts, otherServerLabel);
-                actualConnectedServerLabel = otherServerLabel;
-            } catch (IOException ex) {
-                System.err.println("NetworkManager: Failed to connect to both servers: " + e.getMessage() + " | " + ex.getMessage());
-                return;
-            }
+    private void routeNetworkMessage(FeSession session, NioConnection connection, ISOMsg msg) {
+        CompletableFuture<ISOMsg> signOn = pendingSignOns.remove(connection);
+        if (signOn != null) {
+            signOn.complete(msg);
+            return;
+        }
+        PingManager pingManager = session.pingManager;
+        if (pingManager != null) {
+            pingManager.onNetworkMessage(msg);
+        } else {
+            System.err.println("NetworkManager: Network management message received from " + session.getName() + " with no PingManager active.");
         }
+    }
 
-        // Gestion du Sign-On
-        SignOnStatus signOnStatus;
-        try {
-            signOnStatus = performSignOn(connectedSocket, actualConnectedServerLabel);
-        } catch (IOException | ISOException e) {
-            System.err.println("NetworkManager: Exception during Sign-On for " + actualConnectedServerLabel + ": " + e.getMessage());
-            closeSocket(connectedSocket);
+    private void onConnectionLost(FeSession session, NioConnection connection) {
+        session.getEndpoint().getCircuitBreaker().recordFailure();
+        session.metrics.connectionLost();
+        CompletableFuture<ISOMsg> signOn = pendingSignOns.remove(connection);
+        if (signOn != null) {
+            signOn.completeExceptionally(new IOException("Connection lost during Sign-On"));
             return;
         }
-
-        // Mise à jour des ressources
-        updateConnectionResources(actualConnectedServerLabel, connectedSocket, signOnStatus);
+        PingManager pingManager = session.pingManager;
+        if (connection == session.getConnection() && pingManager != null) {
+            pingManager.handleConnectionProblem();
+        }
     }
 
-    private void closeSocket(Socket socket) {
-        if (socket != null && !socket.isClosed()) {
-            try {
-                socket.close();
-            } catch (IOException e) {
-                System.err.println("Error closing socket: " + e.getMessage());
-            }
-        }
+    /**
+     * Connexion puis Sign-On de la session sans bloquer la boucle ; à l'issue, la session est signée
+     * ou sa prochaine tentative est planifiée selon le délai exponentiel.
+     */
+    private void connectAndSignOnAsync(FeSession session) {
+        connectAsync(session)
+                .thenCompose(connection -> signOnAsync(connection, session.getName()).thenApply(status -> {
+                    updateConnectionResources(session, connection, status);
+                    return status == SignOnStatus.SUCCESS;
+                }))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    System.err.println("NetworkManager: Connection to " + session.getName() + " failed: " + cause
+                            + ". Traffic is routed to the other front ends until it recovers.");
+                    return false;
+                })
+                .thenAccept(connected -> {
+                    session.metrics.signOnAttempted(connected);
+                    synchronized (session.lock) {
+                        session.connecting = false;
+                        if (connected) {
+                            session.connectFailures = 0;
+                        } else {
+                            scheduleNextConnect(session, ++session.connectFailures);
+                        }
+                    }
+                });
     }
 
 
@@ -212,40 +397,48 @@ public class NetworkManager {
         SIGN_OFF_ADVICE_RECEIVED
     }
 
-    public static SignOnStatus performSignOn(Socket socket, String serverName) throws IOException, ISOException {
-        OutputStream out = socket.getOutputStream();
-        InputStream in = socket.getInputStream();
-
-        ISOMsg signOnMsg = new ISOMsg();
-        signOnMsg.setPackager(new ISO87APackager());
-        signOnMsg.setMTI("0800");
-        signOnMsg.set(70, "001");
-        byte[] data = signOnMsg.pack();
-        out.write(data);
-        out.flush();
-        System.out.println("Sign-On (0800/001) sent to " + serverName);
-
-        byte[] buffer = new byte[4096];
-        int bytesRead = -1;
-        try {
-            socket.setSoTimeout(SIGN_ON_RESPONSE_TIMEOUT_MS);
-            bytesRead = in.read(buffer);
-        } catch (SocketTimeoutException e) {
-            System.err.println("Timeout (" + SIGN_ON_RESPONSE_TIMEOUT_MS + "ms) waiting for Sign-On response from " + serverName);
-            return SignOnStatus.FAILURE;
-        } finally {
-            if (socket != null && !socket.isClosed()) {
-                try { socket.setSoTimeout(0); } catch (SocketException e) { /* ignore if already closed */ }
+    /**
+     * Envoie le Sign-On (0800/001) ; le future est complété à la réception du 0810 ou à l'expiration du délai
+     * (jamais exceptionnellement : les erreurs donnent {@link SignOnStatus#FAILURE}).
+     * Le résultat alimente le disjoncteur de l'endpoint : un Sign-On réussi le referme.
+     */
+    CompletableFuture<SignOnStatus> signOnAsync(NioConnection connection, String serverName) {
+        CircuitBreaker breaker = sessionNamed(serverName).getEndpoint().getCircuitBreaker();
+        return sendSignOn(connection, serverName).whenComplete((status, error) -> {
+            if (status == SignOnStatus.SUCCESS) {
+                breaker.recordSuccess();
+            } else {
+                breaker.recordFailure();
             }
-        }
+        });
+    }
 
-        if (bytesRead > 0) {
-            ISOMsg response = new ISOMsg();
-            response.setPackager(new ISO87APackager());
-            byte[] actualData = new byte[bytesRead];
-            System.arraycopy(buffer, 0, actualData, 0, bytesRead);
-            response.unpack(actualData);
+    private CompletableFuture<SignOnStatus> sendSignOn(NioConnection connection, String serverName) {
+        CompletableFuture<ISOMsg> pending = new CompletableFuture<>();
+        pendingSignOns.put(connection, pending);
+        if (!connection.send(NetworkMessageTemplates.SIGN_ON)) {
+            pendingSignOns.remove(connection, pending);
+            System.err.println("Connection to " + serverName + " closed before Sign-On could be sent.");
+            return CompletableFuture.completedFuture(SignOnStatus.FAILURE);
+        }
+        System.out.println("Sign-On (0800/001) sent to " + serverName);
+        failAfter(scheduler, pending, signOnTimeoutMs);
+        return pending.handle((response, error) -> {
+            pendingSignOns.remove(connection, pending);
+            if (error instanceof TimeoutException) {
+                System.err.println("Timeout (" + signOnTimeoutMs + "ms) waiting for Sign-On response from " + serverName);
+                return SignOnStatus.FAILURE;
+            }
+            if (error != null) {
+                System.err.println("No response (or connection closed) received from " + serverName + " for Sign-On: " + error.getMessage());
+                return SignOnStatus.FAILURE;
+            }
+            return evaluateSignOnResponse(response, serverName);
+        });
+    }
 
+    private SignOnStatus evaluateSignOnResponse(ISOMsg response, String serverName) {
+        try {
             String mti = response.getMTI();
             String code = response.getString(39);
             String netCode = response.getString(70);
@@ -263,97 +456,65 @@ public class NetworkManager {
                 System.err.println("Sign-On failed for " + serverName + " (unexpected response): MTI=" + mti + ", Code=" + code + ", NetCode=" + netCode);
                 return SignOnStatus.FAILURE;
             }
-        } else {
-            System.err.println("No response (or stream closed) received from " + serverName + " for Sign-On (bytesRead=" + bytesRead + ").");
+        } catch (ISOException e) {
+            System.err.println("NetworkManager: Exception during Sign-On for " + serverName + ": " + e.getMessage());
             return SignOnStatus.FAILURE;
         }
     }
 
-    private void cleanupConnectionResource(String serverName, boolean sendSignOffMessage) {
-        // Assumes called within appropriate synchronized(lock) block
+    private void cleanupConnectionResource(FeSession session, boolean sendSignOffMessage) {
+        // Assumes called within synchronized(session.lock)
+        String serverName = session.getName();
         System.out.println("NetworkManager: Cleaning up resources for " + serverName + (sendSignOffMessage ? " (with Sign-Off message)" : ""));
 
-        if ("FE1".equals(serverName)) {
-            if (pingManagerFE1 != null) {
-                System.out.println("NetworkManager: Stopping PingManager for " + serverName + " during cleanup.");
-                pingManagerFE1.stopSendingPing();
-                pingManagerFE1 = null;
-            }
-            if (socketFE1 != null) {
-                System.out.println("NetworkManager: Closing socket for " + serverName + " during cleanup.");
-                try {
-                    if (sendSignOffMessage && !socketFE1.isClosed() && socketFE1.isConnected()) {
-                        IsoMessageManager.sendSignOff(socketFE1.getOutputStream());
-                        System.out.println("Sign-Off (0800/002) sent to " + serverName + " before close.");
-                    }
-                    if (!socketFE1.isClosed()) {
-                        socketFE1.close();
-                        System.out.println("Socket closed for " + serverName + ".");
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error closing/Sign-Off FE1: " + e.getMessage());
-                }
-                socketFE1 = null;
-            }
-            fe1SignedOn = false;
-            System.out.println("NetworkManager: State for " + serverName + " reset (signedOn=false).");
-
-        } else if ("FE2".equals(serverName)) {
-            if (pingManagerFE2 != null) {
-                System.out.println("NetworkManager: Stopping PingManager for " + serverName + " during cleanup.");
-                pingManagerFE2.stopSendingPing();
-                pingManagerFE2 = null;
-            }
-            if (socketFE2 != null) {
-                System.out.println("NetworkManager: Closing socket for " + serverName + " during cleanup.");
-                try {
-                    if (sendSignOffMessage && !socketFE2.isClosed() && socketFE2.isConnected()) {
-                        IsoMessageManager.sendSignOff(socketFE2.getOutputStream());
-                        System.out.println("Sign-Off (0800/002) sent to " + serverName + " before close.");
-                    }
-                    if (!socketFE2.isClosed()) {
-                        socketFE2.close();
-                        System.out.println("Socket closed for " + serverName + ".");
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error closing/Sign-Off FE2: " + e.getMessage());
-                }
-                socketFE2 = null;
-            }
-            fe2SignedOn = false;
-            System.out.println("NetworkManager: State for " + serverName + " reset (signedOn=false).");
+        if (session.pingManager != null) {
+            System.out.println("NetworkManager: Stopping PingManager for " + serverName + " during cleanup.");
+            session.pingManager.stopSendingPing();
+            session.pingManager = null;
+        }
+        NioConnection connection = session.getConnection();
+        if (connection != null) {
+            System.out.println("NetworkManager: Closing connection for " + serverName + " during cleanup.");
+            closeConnection(serverName, connection, sendSignOffMessage);
+            session.setConnection(null);
         }
+        session.setSignedOn(false);
+        System.out.println("NetworkManager: State for " + serverName + " reset (signedOn=false).");
         System.out.println("NetworkManager: Cleanup complete for " + serverName + ".");
     }
 
-
-    public void signOff(String serverName) {
-        Object lock = "FE1".equals(serverName) ? fe1Lock : fe2Lock;
-        synchronized (lock) {
-            System.out.println("NetworkManager: Initiating user/external Sign-Off for " + serverName);
-            cleanupConnectionResource(serverName, true);
+    private void closeConnection(String serverName, NioConnection connection, boolean sendSignOffMessage) {
+        try {
+            if (sendSignOffMessage && connection.isOpen()) {
+                IsoMessageManager.sendSignOff(connection);
+                System.out.println("Sign-Off (0800/002) sent to " + serverName + " before close.");
+            }
+        } catch (ISOException e) {
+            System.err.println("Error sending Sign-Off to " + serverName + ": " + e.getMessage());
         }
+        // Les trames en file (dont le Sign-Off) sont écrites avant la fermeture
+        connection.close();
+        System.out.println("Connection closed for " + serverName + ".");
     }
 
-    public Socket getSocketForServer(String serverName) {
-        if ("FE1".equals(serverName)) {
-            synchronized (fe1Lock) {
-                return (socketFE1 != null && !socketFE1.isClosed() && fe1SignedOn) ? socketFE1 : null;
-            }
-        } else if ("FE2".equals(serverName)) {
-            synchronized (fe2Lock) {
-                return (socketFE2 != null && !socketFE2.isClosed() && fe2SignedOn) ? socketFE2 : null;
-            }
+
+    public void signOff(String serverName) {
+        FeSession session = sessionNamed(serverName);
+        synchronized (session.lock) {
+            System.out.println("NetworkManager: Initiating user/external Sign-Off for " + serverName);
+            cleanupConnectionResource(session, true);
         }
-        return null;
     }
 
     public void exit() {
         System.out.println("NetworkManager client initiating shutdown...");
         running.set(false);
 
-        synchronized (fe1Lock) { cleanupConnectionResource("FE1", true); }
-        synchronized (fe2Lock) { cleanupConnectionResource("FE2", true); }
+        for (FeSession session : sessions) {
+            synchronized (session.lock) { cleanupConnectionResource(session, true); }
+        }
 
+        engine.shutdown();
+        scheduler.shutdownNow();
         System.out.println("NetworkManager client shutdown complete.");
-    }}
\ No newline at end of file
+    }}
@@ -0,0 +1,31 @@
+package org.example.network;
+
+import org.example.util.PackagerRegistry;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+/**
+ * Messages de gestion réseau pré-packés une fois pour toutes : ils ne contiennent aucun champ
+ * variable (MTI 0800 + code réseau du champ 70), les mêmes octets sont donc réémis à chaque envoi.
+ * Les tableaux sont partagés et ne doivent pas être modifiés ({@link NioConnection#send} les recopie).
+ */
+final class NetworkMessageTemplates {
+    static final byte[] SIGN_ON = pack("0800", "001");
+    static final byte[] SIGN_OFF = pack("0800", "002");
+    static final byte[] ECHO_TEST = pack("0800", "301");
+
+    private NetworkMessageTemplates() {
+    }
+
+    private static byte[] pack(String mti, String networkCode) {
+        try {
+            ISOMsg msg = new ISOMsg();
+            msg.setPackager(PackagerRegistry.iso87());
+            msg.setMTI(mti);
+            msg.set(70, networkCode);
+            return msg.pack();
+        } catch (ISOException e) {
+            throw new IllegalStateException("Gabarit " + mti + "/" + networkCode + " impossible à packer", e);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.example.network;
+
+import org.example.util.CaptureJournal;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connexion TCP non bloquante gérée par un {@link NioEngine}.
+ * L'envoi est possible depuis n'importe quel thread : les trames sont mises en file puis
+ * écrites par la boucle d'événements via un tampon direct. La lecture découpe le flux en
+ * trames (voir {@link FrameCodec}) directement dans le tampon de réception.
+ * Si le moteur a un {@link CaptureJournal}, chaque message y est recopié au moment où il est écrit
+ * sur le socket ou extrait du flux reçu, depuis la boucle d'événements.
+ */
+public class NioConnection {
+    private static final int READ_BUFFER_SIZE = 128 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final NioEngine engine;
+    private final SocketChannel channel;
+    private final String label;
+    private final FrameHandler handler;
+    private final FrameCodec codec = FrameCodec.getDefault();
+    private final CaptureJournal journal;
+    private final byte[] journalLabel;
+
+    // Tampons et état réservés à la boucle d'événements
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private byte[] frame = new byte[4096];
+    private byte[] pendingFrame;
+    private int pendingOffset;
+
+    private final Queue<byte[]> writeQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private volatile boolean open = false;
+    private volatile boolean closed = false;
+    private volatile boolean closeRequested = false;
+    // Dernière réception de données : une liaison active n'a pas besoin d'echo test
+    private volatile long lastReadNanos = System.nanoTime();
+
+    SelectionKey key;
+    CompletableFuture<NioConnection> pendingConnect;
+
+    NioConnection(NioEngine engine, SocketChannel channel, String label, FrameHandler handler) {
+        this.engine = engine;
+        this.channel = channel;
+        this.label = label;
+        this.handler = handler;
+        this.journal = engine.journal;
+        this.journalLabel = journal != null ? CaptureJournal.encodeLabel(label) : null;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean isOpen() {
+        return open && !closed;
+    }
+
+    /**
+     * Instant ({@link System#nanoTime()}) de la dernière lecture de données sur la connexion.
+     */
+    public long getLastReadNanos() {
+        return lastReadNanos;
+    }
+
+    public SocketAddress getRemoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Met le message ISO en file d'envoi, précédé de son en-tête de longueur.
+     * @return false si la connexion n'est pas (ou plus) ouverte.
+     */
+    public boolean send(byte[] message) {
+        return sendFrame(codec.encode(message));
+    }
+
+    /**
+     * Met en file une trame déjà complète (en-tête de longueur écrit par {@link FrameCodec#writeHeader}
+     * puis message), sans la recopier : le tableau appartient ensuite à la connexion et ne doit plus être modifié.
+     * @return false si la connexion n'est pas (ou plus) ouverte.
+     */
+    public boolean sendFrame(byte[] frame) {
+        if (!isOpen()) {
+            return false;
+        }
+        writeQueue.add(frame);
+        if (flushScheduled.compareAndSet(false, true)) {
+            engine.execute(this::flushQuietly);
+        }
+        return true;
+    }
+
+    /**
+     * Fermeture demandée par le client : les trames déjà en file sont écrites si possible,
+     * puis la connexion est fermée sans être signalée comme perdue au {@link FrameHandler}.
+     */
+    public void close() {
+        closeRequested = true;
+        engine.execute(() -> {
+            flushQuietly();
+            closeNow(null);
+        });
+    }
+
+    void finishConnect() throws IOException {
+        if (channel.finishConnect()) {
+            open = true;
+            key.interestOps(SelectionKey.OP_READ);
+            CompletableFuture<NioConnection> connect = pendingConnect;
+            pendingConnect = null;
+            if (!connect.complete(this)) {
+                // Délai de connexion déjà expiré côté appelant
+                closeNow(null);
+            }
+        }
+    }
+
+    /**
+     * Connexion entrante acceptée par {@link NioEngine#listen} : ouverte d'emblée.
+     */
+    void accepted() {
+        open = true;
+    }
+
+    void onReadable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            closeNow(null);
+            return;
+        }
+        if (read > 0) {
+            lastReadNanos = System.nanoTime();
+        }
+        readBuffer.flip();
+        int headerLength = codec.getHeaderLength();
+        while (readBuffer.remaining() >= headerLength) {
+            int start = readBuffer.position();
+            int length = codec.readHeader(readBuffer, start);
+            if (length <= 0 || length > FrameCodec.MAX_FRAME_LENGTH) {
+                throw new IOException("Longueur de trame invalide reçue de " + label + " : " + length);
+            }
+            if (readBuffer.remaining() < headerLength + length) {
+                break; // trame incomplète, on attend la suite
+            }
+            if (length > frame.length) {
+                frame = new byte[Math.max(length, frame.length * 2)];
+            }
+            readBuffer.get(start + headerLength, frame, 0, length);
+            readBuffer.position(start + headerLength + length);
+            if (journal != null) {
+                journal.record(false, journalLabel, frame, 0, length);
+            }
+            handler.onFrame(this, frame, length);
+        }
+        readBuffer.compact();
+    }
+
+    void flush() throws IOException {
+        flushScheduled.set(false);
+        while (true) {
+            fillWriteBuffer();
+            writeBuffer.flip();
+            if (!writeBuffer.hasRemaining()) {
+                writeBuffer.clear();
+                setWriteInterest(false);
+                return;
+            }
+            channel.write(writeBuffer);
+            boolean incomplete = writeBuffer.hasRemaining();
+            writeBuffer.compact();
+            if (incomplete) {
+                // Tampon d'émission du noyau plein : reprise sur OP_WRITE
+                setWriteInterest(true);
+                return;
+            }
+        }
+    }
+
+    private void fillWriteBuffer() {
+        while (writeBuffer.hasRemaining()) {
+            if (pendingFrame == null) {
+                pendingFrame = writeQueue.poll();
+                pendingOffset = 0;
+                if (pendingFrame == null) {
+                    return;
+                }
+                if (journal != null) {
+                    int headerLength = codec.getHeaderLength();
+                    journal.record(true, journalLabel, pendingFrame, headerLength, pendingFrame.length - headerLength);
+                }
+            }
+            int count = Math.min(writeBuffer.remaining(), pendingFrame.length - pendingOffset);
+            writeBuffer.put(pendingFrame, pendingOffset, count);
+            pendingOffset += count;
+            if (pendingOffset == pendingFrame.length) {
+                pendingFrame = null;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        if (closed || !open) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException e) {
+            closeNow(e);
+        }
+    }
+
+    private void setWriteInterest(boolean enabled) {
+        if (key.isValid()) {
+            int ops = key.interestOps();
+            key.interestOps(enabled ? ops | SelectionKey.OP_WRITE : ops & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    void closeNow(Throwable cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean wasOpen = open;
+        open = false;
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("NioConnection[" + label + "]: Error closing channel: " + e.getMessage());
+        }
+        writeQueue.clear();
+
+        CompletableFuture<NioConnection> connect = pendingConnect;
+        pendingConnect = null;
+        if (connect != null) {
+            connect.completeExceptionally(cause != null ? cause : new IOException("Connection to " + label + " closed"));
+        } else if (wasOpen && !closeRequested) {
+            handler.onClosed(this, cause);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.network;
+
+import org.example.util.CaptureJournal;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Moteur de connexions non bloquant : un seul thread et un {@link Selector} servent
+ * toutes les connexions FE, quel que soit leur nombre (sortantes via {@link #connect},
+ * ou acceptées via {@link #listen} pour le FE simulé).
+ * Les opérations demandées depuis d'autres threads sont exécutées sur la boucle d'événements.
+ */
+public class NioEngine {
+    private final Selector selector;
+    private final Thread loop;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    // Journal des trames émises et reçues, écrit par la boucle d'événements seule ; null si pas de capture
+    final CaptureJournal journal;
+
+    public NioEngine(String name) throws IOException {
+        this(name, null);
+    }
+
+    /**
+     * Moteur dont toutes les trames sont enregistrées dans {@code journal} (fermé à l'arrêt du moteur).
+     */
+    public NioEngine(String name, CaptureJournal journal) throws IOException {
+        this.journal = journal;
+        this.selector = Selector.open();
+        this.loop = new Thread(this::run, name);
+        this.loop.setDaemon(true);
+        this.loop.start();
+    }
+
+    /**
+     * Ouvre une connexion non bloquante.
+     * Le future est complété une fois la connexion TCP établie, ou exceptionnellement
+     * en cas d'échec ou de dépassement de {@code connectTimeoutMs}.
+     */
+    public CompletableFuture<NioConnection> connect(String label, InetSocketAddress address,
+                                                    FrameHandler handler, long connectTimeoutMs) {
+        CompletableFuture<NioConnection> result = new CompletableFuture<>();
+        execute(() -> {
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+
+                NioConnection connection = new NioConnection(this, channel, label, handler);
+                connection.key = channel.register(selector, 0, connection);
+                connection.pendingConnect = result;
+                result.whenComplete((c, error) -> {
+                    if (error != null) connection.close();
+                });
+
+                if (channel.connect(address)) {
+                    connection.finishConnect();
+                } else {
+                    connection.key.interestOps(SelectionKey.OP_CONNECT);
+                }
+            } catch (IOException e) {
+                closeQuietly(channel);
+                result.completeExceptionally(e);
+            }
+        });
+        return result.orTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ouvre une écoute sur {@code address} ; chaque connexion acceptée est servie par la boucle
+     * d'événements avec un nouveau {@link FrameHandler} fourni par {@code handlers}.
+     * @return future complété par l'adresse d'écoute effective (port attribué si {@code address} a le port 0).
+     */
+    public CompletableFuture<InetSocketAddress> listen(String label, InetSocketAddress address,
+                                                       Supplier<FrameHandler> handlers) {
+        CompletableFuture<InetSocketAddress> result = new CompletableFuture<>();
+        execute(() -> {
+            ServerSocketChannel channel = null;
+            try {
+                channel = ServerSocketChannel.open();
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+                channel.bind(address);
+                channel.register(selector, SelectionKey.OP_ACCEPT, new Listener(channel, label, handlers));
+                result.complete((InetSocketAddress) channel.getLocalAddress());
+            } catch (IOException e) {
+                closeQuietly(channel);
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Exécute la tâche sur la boucle d'événements.
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (Thread.currentThread() != loop) {
+            selector.wakeup();
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                // Tâches ajoutées par la boucle elle-même pendant le traitement des clés (ex : Sign-On envoyé
+                // depuis finishConnect) : pas de wakeup pour elles, il ne faut donc pas se bloquer dans select
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+                runTasks();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    processKey(key);
+                }
+            } catch (IOException e) {
+                System.err.println("NioEngine: Selector error: " + e.getMessage());
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioConnection connection) {
+                connection.closeNow(null);
+            } else if (key.attachment() instanceof Listener listener) {
+                closeQuietly(listener.channel());
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            System.err.println("NioEngine: Error closing selector: " + e.getMessage());
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        System.out.println("NioEngine: Event loop finished.");
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                System.err.println("NioEngine: Task failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void processKey(SelectionKey key) {
+        if (key.attachment() instanceof Listener listener) {
+            accept(listener);
+            return;
+        }
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isValid() && key.isConnectable()) {
+                connection.finishConnect();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.onReadable();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            // RuntimeException : clé annulée entre-temps ou trame invalide, la connexion est abandonnée
+            connection.closeNow(e);
+        }
+    }
+
+    private void accept(Listener listener) {
+        SocketChannel channel;
+        try {
+            while ((channel = listener.channel().accept()) != null) {
+                try {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    NioConnection connection = new NioConnection(this, channel,
+                            listener.label() + "<-" + channel.getRemoteAddress(), listener.handlers().get());
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                    connection.accepted();
+                } catch (IOException e) {
+                    System.err.println("NioEngine: Error accepting connection on " + listener.label() + ": " + e.getMessage());
+                    closeQuietly(channel);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("NioEngine: Accept failed on " + listener.label() + ": " + e.getMessage());
+        }
+    }
+
+    private record Listener(ServerSocketChannel channel, String label, Supplier<FrameHandler> handlers) {
+    }
+
+    private static void closeQuietly(Channel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
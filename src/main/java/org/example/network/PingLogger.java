@@ -1,22 +1,92 @@
 package org.example.network;
 
-import java.util.logging.*;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.rolling.DefaultRolloverStrategy;
+import org.apache.logging.log4j.core.config.builder.api.AppenderComponentBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ComponentBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilder;
+import org.apache.logging.log4j.core.config.builder.api.ConfigurationBuilderFactory;
+import org.apache.logging.log4j.core.config.builder.impl.BuiltConfiguration;
+import org.example.util.ClientConfig;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal des pings et reconnexions (ping.log), sur log4j2 core.
+ * <p>
+ * Le logger est asynchrone (file circulaire du Disruptor) : l'appelant ne fait que déposer l'événement,
+ * le formatage des messages paramétrés ({@code "... {} ..."}) et l'écriture disque se font sur le thread
+ * de fond. Si la file est pleine, les événements sont abandonnés plutôt que de bloquer le ping.
+ * Le fichier tourne par taille et par jour ({@code pinglog.*} dans client.properties).
+ * <p>
+ * Un LoggerContext privé est utilisé : l'API log4j du classpath est redirigée vers SLF4J/Logback
+ * (log4j-to-slf4j), ce qui ne doit pas s'appliquer à ce journal.
+ */
 public class PingLogger {
-    private static final Logger logger = Logger.getLogger("PingLogger");
-
-    static {
-        try {
-            FileHandler fh = new FileHandler("ping.log", true);
-            fh.setFormatter(new SimpleFormatter());
-            logger.addHandler(fh);
-            logger.setUseParentHandlers(false);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+    private static final String LOGGER_NAME = "PingLogger";
+
+    private static final LoggerContext context = createContext();
+    private static final Logger logger = context.getLogger(LOGGER_NAME);
+
+    private PingLogger() {
     }
-    // méthode pour enregistrer un message de log
-    public static void log(String message) {
-        logger.info(message);
+
+    public static Logger logger() {
+        return logger;
+    }
+
+    /**
+     * Vide la file asynchrone sur disque et ferme le fichier.
+     */
+    public static void shutdown() {
+        context.stop(5, TimeUnit.SECONDS);
+    }
+
+    private static LoggerContext createContext() {
+        // Politique de file pleine des loggers asynchrones : abandon plutôt que blocage de l'appelant,
+        // et formatage des messages paramétrés sur le thread de fond (arguments immuables)
+        setDefaultProperty("log4j2.asyncQueueFullPolicy", "Discard");
+        setDefaultProperty("log4j2.discardThreshold", "ERROR");
+        setDefaultProperty("log4j2.formatMsgAsync", "true");
+
+        String file = ClientConfig.getString("pinglog.file", "ping.log");
+        String filePattern = file.replaceFirst("\\.log$", "") + "-%d{yyyy-MM-dd}-%i.log.gz";
+
+        ConfigurationBuilder<BuiltConfiguration> builder = ConfigurationBuilderFactory.newConfigurationBuilder();
+        builder.setConfigurationName(LOGGER_NAME);
+        builder.setStatusLevel(Level.WARN);
+
+        ComponentBuilder<?> policies = builder.newComponent("Policies")
+                .addComponent(builder.newComponent("SizeBasedTriggeringPolicy")
+                        .addAttribute("size", ClientConfig.getString("pinglog.maxFileSize", "10 MB")))
+                .addComponent(builder.newComponent("TimeBasedTriggeringPolicy"));
+        AppenderComponentBuilder appender = builder.newAppender("PingFile", "RollingRandomAccessFile")
+                .addAttribute("fileName", file)
+                .addAttribute("filePattern", filePattern)
+                .addAttribute("immediateFlush", false)
+                .add(builder.newLayout("PatternLayout")
+                        .addAttribute("pattern", "%d{yyyy-MM-dd HH:mm:ss.SSS} %-5level [%t] %msg%n"))
+                .addComponent(policies)
+                .addComponent(builder.newComponent(DefaultRolloverStrategy.class.getSimpleName())
+                        .addAttribute("max", ClientConfig.getInt("pinglog.maxFiles", 10)));
+        builder.add(appender);
+
+        Level level = Level.toLevel(ClientConfig.getString("pinglog.level", "INFO"), Level.INFO);
+        builder.add(builder.newAsyncLogger(LOGGER_NAME, level)
+                .add(builder.newAppenderRef("PingFile"))
+                .addAttribute("additivity", false));
+        builder.add(builder.newRootLogger(Level.OFF));
+
+        LoggerContext ctx = new LoggerContext(LOGGER_NAME);
+        ctx.start(builder.build());
+        return ctx;
+    }
+
+    private static void setDefaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
     }
 }
@@ -0,0 +1,45 @@
+package org.example.network;
+
+import org.example.util.ClientConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Délai entre deux tentatives de reconnexion : exponentiel, plafonné, avec gigue.
+ * La moitié du délai exponentiel est fixe, l'autre moitié tirée au hasard, pour que les sessions
+ * d'un même front-end ne se reconnectent pas toutes au même instant.
+ */
+public class ReconnectBackoff {
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+
+    public ReconnectBackoff(long baseDelayMs, long maxDelayMs) {
+        if (baseDelayMs < 1 || maxDelayMs < baseDelayMs) {
+            throw new IllegalArgumentException("Délais de reconnexion invalides : base " + baseDelayMs + ", max " + maxDelayMs);
+        }
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * Délais configurés par {@code fe.reconnect.baseDelayMs} et {@code fe.reconnect.maxDelayMs}.
+     */
+    public static ReconnectBackoff fromConfig() {
+        return new ReconnectBackoff(
+                ClientConfig.getLong("fe.reconnect.baseDelayMs", 500),
+                ClientConfig.getLong("fe.reconnect.maxDelayMs", 30000));
+    }
+
+    /**
+     * Délai tiré entre la moitié et la totalité du délai exponentiel {@code base × 2^attempt} plafonné,
+     * sans jamais descendre sous {@code base} ni dépasser le plafond.
+     * @param attempt numéro de la tentative qui vient d'échouer (1 pour la première).
+     * @return délai avant la tentative suivante, en millisecondes.
+     */
+    public long delayMillis(int attempt) {
+        int shift = Math.min(Math.max(attempt, 1), 30);
+        long exponential = baseDelayMs > maxDelayMs >> shift ? maxDelayMs : baseDelayMs << shift;
+        long floor = Math.max(baseDelayMs, exponential / 2);
+        return floor + ThreadLocalRandom.current().nextLong(exponential - floor + 1);
+    }
+}
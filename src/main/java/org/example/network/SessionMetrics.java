@@ -0,0 +1,79 @@
+package org.example.network;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.util.ClientMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques d'une {@link FeSession} : requêtes en vol et état de Sign-On (jauges lues à l'export),
+ * reconnexions, pertes de connexion et durée aller-retour des echo tests.
+ * Une reconnexion est une tentative de connexion + Sign-On faite après un premier Sign-On réussi.
+ */
+final class SessionMetrics {
+    private final Counter reconnects;
+    private final Counter failedReconnects;
+    private final Counter connectionLosses;
+    private final Timer echoRoundTrip;
+    private volatile boolean established;
+
+    SessionMetrics(FeSession session) {
+        MeterRegistry registry = ClientMetrics.registry();
+        String name = session.getName();
+        String endpoint = session.getEndpoint().getName();
+        Gauge.builder("iso.session.inflight", session, FeSession::getInFlight)
+                .description("Autorisations en attente de réponse")
+                .tags("session", name, "endpoint", endpoint)
+                .register(registry);
+        Gauge.builder("iso.session.signed_on", session, s -> s.isReady() ? 1 : 0)
+                .description("1 si la session est connectée et signée")
+                .tags("session", name, "endpoint", endpoint)
+                .register(registry);
+        this.reconnects = Counter.builder("iso.session.reconnects")
+                .tags("session", name, "endpoint", endpoint, "outcome", "success")
+                .register(registry);
+        this.failedReconnects = Counter.builder("iso.session.reconnects")
+                .tags("session", name, "endpoint", endpoint, "outcome", "failure")
+                .register(registry);
+        this.connectionLosses = Counter.builder("iso.session.connection_losses")
+                .tags("session", name, "endpoint", endpoint)
+                .register(registry);
+        this.echoRoundTrip = Timer.builder("iso.echo.rtt")
+                .description("Aller-retour des echo tests (0800/301)")
+                .tags("session", name, "endpoint", endpoint)
+                .register(registry);
+    }
+
+    /**
+     * Disjoncteur de l'endpoint : 0 CLOSED, 1 OPEN, 2 HALF_OPEN.
+     */
+    static void registerEndpoint(FeEndpoint endpoint) {
+        Gauge.builder("iso.endpoint.circuit.state", endpoint.getCircuitBreaker(), breaker -> breaker.getState().ordinal())
+                .description("État du disjoncteur : 0 CLOSED, 1 OPEN, 2 HALF_OPEN")
+                .tags("endpoint", endpoint.getName())
+                .register(ClientMetrics.registry());
+    }
+
+    /**
+     * Issue d'une tentative de connexion + Sign-On (boucle de connexion ou PingManager).
+     */
+    void signOnAttempted(boolean success) {
+        if (established) {
+            (success ? reconnects : failedReconnects).increment();
+        }
+        if (success) {
+            established = true;
+        }
+    }
+
+    void connectionLost() {
+        connectionLosses.increment();
+    }
+
+    void echoAnswered(long roundTripNanos) {
+        echoRoundTrip.record(roundTripNanos, TimeUnit.NANOSECONDS);
+    }
+}
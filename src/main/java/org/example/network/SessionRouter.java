@@ -0,0 +1,46 @@
+package org.example.network;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Choisit la session prête ayant le moins de requêtes en vol.
+ * Le point de départ du parcours tourne à chaque appel, de sorte qu'à charge égale
+ * les envois alternent entre les sessions (et donc entre FE1 et FE2).
+ * Les endpoints dont le {@link CircuitBreaker} est ouvert sont écartés sans tentative.
+ */
+public class SessionRouter {
+    private final AtomicInteger nextStart = new AtomicInteger();
+
+    /**
+     * @param excludedEndpoint nom d'un endpoint à écarter (bascule après échec), ou null.
+     * @return la session retenue, ou null si aucune session n'est disponible.
+     */
+    public FeSession select(List<FeSession> sessions, String excludedEndpoint) {
+        int size = sessions.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(nextStart.getAndIncrement(), size);
+        FeSession best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            FeSession session = sessions.get((start + i) % size);
+            FeEndpoint endpoint = session.getEndpoint();
+            if (!session.isReady() || endpoint.getName().equals(excludedEndpoint)
+                    || !endpoint.getCircuitBreaker().isCallPermitted()) {
+                continue;
+            }
+            int load = session.getInFlight();
+            if (load < bestLoad) {
+                best = session;
+                bestLoad = load;
+            }
+        }
+        if (best != null && !best.getEndpoint().getCircuitBreaker().tryAcquirePermission()) {
+            // Essai HALF_OPEN pris entre-temps par un autre thread : l'endpoint n'est plus candidat au passage suivant
+            return select(sessions, excludedEndpoint);
+        }
+        return best;
+    }
+}
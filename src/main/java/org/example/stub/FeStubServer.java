@@ -0,0 +1,226 @@
+package org.example.stub;
+
+import org.example.network.FrameHandler;
+import org.example.network.NioConnection;
+import org.example.network.NioEngine;
+import org.example.util.ClientConfig;
+import org.example.util.PackagerRegistry;
+import org.example.util.TimingWheel;
+import org.example.util.WeightedTable;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * FE simulé, pour mesurer et tester le client sans frontal réel (poste de développement, CI).
+ * <p>
+ * Parle le même format que les FE (ISO 8583:1987 ASCII, trames préfixées par leur longueur) et sert
+ * toutes ses connexions sur un seul {@link NioEngine}. Répond :
+ * <ul>
+ *   <li>aux 0800 de Sign-On (001), Sign-Off (002) et echo test (301) par une 0810 code 00 ;</li>
+ *   <li>aux 0100 par une 0110 dont le code réponse est tiré dans {@code stub.responseCodes}
+ *   (numéro d'autorisation en champ 38 si approuvée) ;</li>
+ *   <li>aux 0400/0420 (et répétitions) par une 0410/0430 code 00.</li>
+ * </ul>
+ * Les défaillances d'un vrai FE sont injectées sur les 0100 : latence ({@link LatencyDistribution},
+ * {@code stub.latency}), code 96 ({@code stub.errorRate}), absence de réponse ({@code stub.dropRate})
+ * et coupure de la connexion ({@code stub.disconnectRate}). Les réponses différées sont tenues par
+ * une {@link TimingWheel} au pas de {@code stub.tickMs}.
+ * <p>
+ * Lancement : {@code java -cp ... org.example.stub.FeStubServer [port...]} (par défaut {@code stub.ports}).
+ */
+public class FeStubServer {
+    private static final String APPROVED = "00";
+    private static final String SYSTEM_MALFUNCTION = "96";
+    // Données de piste et PIN : jamais renvoyées dans la réponse
+    private static final int[] STRIPPED_FIELDS = {35, 45, 52};
+
+    private final NioEngine engine;
+    private final TimingWheel delays;
+    private final WeightedTable<String> responseCodes;
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final double dropRate;
+    private final double disconnectRate;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder approved = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder reversals = new LongAdder();
+    private final LongAdder networkMessages = new LongAdder();
+
+    public FeStubServer(WeightedTable<String> responseCodes, LatencyDistribution latency, double errorRate,
+                        double dropRate, double disconnectRate, long tickMs) throws IOException {
+        this.responseCodes = responseCodes;
+        this.latency = latency;
+        this.errorRate = rate(errorRate, "stub.errorRate");
+        this.dropRate = rate(dropRate, "stub.dropRate");
+        this.disconnectRate = rate(disconnectRate, "stub.disconnectRate");
+        this.delays = new TimingWheel("stub", tickMs, 1024);
+        this.engine = new NioEngine("FeStub-NioEngine");
+    }
+
+    /**
+     * FE simulé configuré par les clés {@code stub.*}.
+     */
+    public static FeStubServer fromConfig() throws IOException {
+        return new FeStubServer(
+                WeightedTable.parse(ClientConfig.getString("stub.responseCodes", "00:100"), code -> code),
+                LatencyDistribution.parse(ClientConfig.getString("stub.latency", "0")),
+                Double.parseDouble(ClientConfig.getString("stub.errorRate", "0")),
+                Double.parseDouble(ClientConfig.getString("stub.dropRate", "0")),
+                Double.parseDouble(ClientConfig.getString("stub.disconnectRate", "0")),
+                ClientConfig.getLong("stub.tickMs", 1));
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Integer> ports = new ArrayList<>();
+        for (String port : args.length > 0 ? args : ClientConfig.getString("stub.ports", "5000,6000").split(",")) {
+            ports.add(Integer.parseInt(port.trim()));
+        }
+        FeStubServer server = fromConfig();
+        for (int port : ports) {
+            InetSocketAddress address = server.listen("STUB:" + port, new InetSocketAddress(port));
+            System.out.println("FeStubServer: Listening on " + address);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println(server.summary());
+            server.shutdown();
+        }));
+
+        long reportIntervalMs = ClientConfig.getLong("stub.reportIntervalSeconds", 10) * 1000;
+        while (reportIntervalMs > 0) {
+            Thread.sleep(reportIntervalMs);
+            System.out.println(server.summary());
+        }
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Ouvre une écoute ; le port 0 en attribue un libre.
+     * @return adresse d'écoute effective.
+     */
+    public InetSocketAddress listen(String label, InetSocketAddress address) throws IOException {
+        try {
+            return engine.listen(label, address, StubConnection::new).join();
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot listen on " + address + ": " + e.getCause(), e);
+        }
+    }
+
+    public void shutdown() {
+        engine.shutdown();
+        delays.stop();
+    }
+
+    public String summary() {
+        return "FeStubServer: requests=" + requests.sum() + " approved=" + approved.sum() + " declined=" + declined.sum()
+                + " dropped=" + dropped.sum() + " disconnects=" + disconnects.sum() + " reversals=" + reversals.sum()
+                + " network=" + networkMessages.sum();
+    }
+
+    /**
+     * Une connexion cliente ; les trames sont traitées sur la boucle d'événements.
+     */
+    private final class StubConnection implements FrameHandler {
+
+        @Override
+        public void onFrame(NioConnection connection, byte[] frame, int length) {
+            ISOMsg request = new ISOMsg();
+            request.setPackager(PackagerRegistry.iso87());
+            try {
+                request.unpack(Arrays.copyOf(frame, length));
+                String mti = request.getMTI();
+                switch (mti.substring(0, 2)) {
+                    case "08" -> answerNetwork(connection, request);
+                    case "01" -> answerAuthorization(connection, request);
+                    case "04" -> answerReversal(connection, request);
+                    default -> System.err.println("FeStubServer: Unsupported MTI " + mti + " from " + connection.getLabel());
+                }
+            } catch (ISOException e) {
+                System.err.println("FeStubServer: Invalid message from " + connection.getLabel() + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void onClosed(NioConnection connection, Throwable cause) {
+            System.out.println("FeStubServer: Connection " + connection.getLabel() + " closed"
+                    + (cause != null ? " (" + cause.getMessage() + ")" : ""));
+        }
+    }
+
+    private void answerNetwork(NioConnection connection, ISOMsg request) throws ISOException {
+        networkMessages.increment();
+        ISOMsg response = (ISOMsg) request.clone();
+        response.setResponseMTI();
+        String code = request.getString(70);
+        // Sign-On, Sign-Off, echo test ; tout autre code de gestion réseau est refusé
+        response.set(39, "001".equals(code) || "002".equals(code) || "301".equals(code) ? APPROVED : "12");
+        send(connection, response);
+    }
+
+    private void answerAuthorization(NioConnection connection, ISOMsg request) throws ISOException {
+        requests.increment();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (disconnectRate > 0 && random.nextDouble() < disconnectRate) {
+            disconnects.increment();
+            connection.close();
+            return;
+        }
+        if (dropRate > 0 && random.nextDouble() < dropRate) {
+            dropped.increment();
+            return;
+        }
+        ISOMsg response = (ISOMsg) request.clone();
+        response.setResponseMTI();
+        for (int field : STRIPPED_FIELDS) {
+            response.unset(field);
+        }
+        String code = errorRate > 0 && random.nextDouble() < errorRate ? SYSTEM_MALFUNCTION : responseCodes.pick(random.nextLong());
+        response.set(39, code);
+        if (APPROVED.equals(code)) {
+            approved.increment();
+            response.set(38, String.format("%06d", random.nextInt(1_000_000)));
+        } else {
+            declined.increment();
+        }
+        long delayMs = Math.round(latency.sampleMillis(random));
+        if (delayMs <= 0) {
+            send(connection, response);
+        } else {
+            delays.schedule(() -> send(connection, response), delayMs);
+        }
+    }
+
+    private void answerReversal(NioConnection connection, ISOMsg request) throws ISOException {
+        reversals.increment();
+        ISOMsg response = (ISOMsg) request.clone();
+        response.setResponseMTI();
+        response.set(39, APPROVED);
+        send(connection, response);
+    }
+
+    private static void send(NioConnection connection, ISOMsg response) {
+        try {
+            connection.send(response.pack());
+        } catch (ISOException e) {
+            System.err.println("FeStubServer: Cannot pack response for " + connection.getLabel() + ": " + e.getMessage());
+        }
+    }
+
+    private static double rate(double value, String key) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException(key + " doit être compris entre 0 et 1 : " + value);
+        }
+        return value;
+    }
+}
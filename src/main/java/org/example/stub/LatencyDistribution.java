@@ -0,0 +1,67 @@
+package org.example.stub;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Latence injectée par le FE simulé avant chaque réponse, décrite par une chaîne :
+ * <ul>
+ *   <li>{@code 0} ou {@code fixed:5} : constante, en millisecondes ;</li>
+ *   <li>{@code uniform:2-20} : uniforme entre deux bornes ;</li>
+ *   <li>{@code exponential:10} : exponentielle de moyenne donnée ;</li>
+ *   <li>{@code lognormal:8,0.6} : log-normale de médiane donnée et d'écart-type du logarithme donné,
+ *   pour une queue de distribution longue comme celle d'un vrai émetteur.</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Latence tirée, en millisecondes.
+     */
+    double sampleMillis(RandomGenerator random);
+
+    static LatencyDistribution parse(String spec) {
+        String trimmed = spec.trim();
+        int colon = trimmed.indexOf(':');
+        String kind = colon < 0 ? "fixed" : trimmed.substring(0, colon).trim();
+        String args = colon < 0 ? trimmed : trimmed.substring(colon + 1).trim();
+        try {
+            switch (kind) {
+                case "fixed" -> {
+                    double millis = nonNegative(Double.parseDouble(args), spec);
+                    return random -> millis;
+                }
+                case "uniform" -> {
+                    String[] bounds = args.split("-");
+                    double min = nonNegative(Double.parseDouble(bounds[0]), spec);
+                    double max = Double.parseDouble(bounds[bounds.length - 1]);
+                    if (bounds.length != 2 || max < min) {
+                        throw new IllegalArgumentException("Bornes invalides (min-max attendu) : " + spec);
+                    }
+                    return random -> min + random.nextDouble() * (max - min);
+                }
+                case "exponential" -> {
+                    double mean = nonNegative(Double.parseDouble(args), spec);
+                    return random -> -mean * Math.log(1 - random.nextDouble());
+                }
+                case "lognormal" -> {
+                    String[] params = args.split(",");
+                    double median = nonNegative(Double.parseDouble(params[0]), spec);
+                    double sigma = nonNegative(Double.parseDouble(params[1]), spec);
+                    double mu = Math.log(median);
+                    return random -> Math.exp(mu + sigma * random.nextGaussian());
+                }
+                default -> throw new IllegalArgumentException("Distribution de latence inconnue : " + spec);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Distribution de latence invalide : " + spec, e);
+        }
+    }
+
+    private static double nonNegative(double value, String spec) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Valeur négative dans la distribution de latence : " + spec);
+        }
+        return value;
+    }
+}
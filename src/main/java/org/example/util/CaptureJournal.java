@@ -0,0 +1,273 @@
+package org.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Journal binaire des trames ISO brutes émises et reçues, pour rejouer un incident à l'identique
+ * (voir {@code org.example.network.CaptureReplay}).
+ * <p>
+ * Chaque lancement écrit dans son propre répertoire {@code <capture.dir>/<aaaaMMjj-HHmmss>} une suite de
+ * segments de {@code capture.segmentSizeMb} Mo projetés en mémoire. Un enregistrement est une simple
+ * copie des octets du message dans le segment projeté, sans allocation ni mise en forme ; le système
+ * écrit les pages sur disque en tâche de fond. Le segment suivant est créé et projeté à l'avance
+ * sur un thread de fond, le passage d'un segment à l'autre ne coûte donc qu'un changement de tampon.
+ * <p>
+ * Un seul thread écrit (la boucle d'événements du {@code NioEngine}) : aucun verrou.
+ * <p>
+ * Format d'un segment : en-tête de {@value #HEADER_SIZE} octets (magique, version, rang du segment,
+ * instant de départ du journal en millisecondes epoch) puis les enregistrements
+ * {@code longueur (int) | horodatage (long, ns depuis le départ) | sens (1 = émis) | longueur du libellé (byte)
+ * | libellé | message}. La longueur est écrite en dernier : un enregistrement interrompu (arrêt brutal)
+ * reste à zéro et marque la fin des données, comme la fin non remplie du segment.
+ */
+public class CaptureJournal implements Closeable {
+    private static final long MAGIC = 0x49534F4341503031L; // "ISOCAP01"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    private static final int RECORD_HEADER_SIZE = 4 + 8 + 1 + 1;
+    private static final DateTimeFormatter RUN_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long baseEpochMillis = System.currentTimeMillis();
+    private final long baseNanos = System.nanoTime();
+    // Création des segments à l'avance et synchronisation des segments pleins, hors de la boucle d'événements
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "capture-journal");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private CompletableFuture<MappedByteBuffer> nextSegment;
+    private long records;
+    private boolean closed;
+
+    /**
+     * Enregistrement relu par {@link Reader}.
+     * @param nanos instant de l'enregistrement, en nanosecondes depuis le départ du journal.
+     */
+    public record Frame(long nanos, boolean outbound, String label, byte[] message) {
+    }
+
+    public CaptureJournal(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < HEADER_SIZE + RECORD_HEADER_SIZE + 255 + 65535) {
+            throw new IllegalArgumentException("Segment de capture trop petit : " + segmentSize + " octets");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.segment = createSegment(0);
+        this.nextSegment = CompletableFuture.supplyAsync(() -> createSegmentUnchecked(1), background);
+    }
+
+    /**
+     * Journal d'un nouveau lancement sous {@code capture.dir}, ou null si {@code capture.enabled} est faux.
+     */
+    public static CaptureJournal fromConfig() throws IOException {
+        if (!ClientConfig.getBoolean("capture.enabled", false)) {
+            return null;
+        }
+        Path run = Path.of(ClientConfig.getString("capture.dir", "capture"), LocalDateTime.now().format(RUN_FORMAT));
+        CaptureJournal journal = new CaptureJournal(run, ClientConfig.getInt("capture.segmentSizeMb", 64) * 1024 * 1024);
+        System.out.println("CaptureJournal: Recording raw frames to " + run);
+        return journal;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Libellé de connexion sous la forme enregistrée (UTF-8, 255 octets au plus) ; à calculer une fois par connexion.
+     */
+    public static byte[] encodeLabel(String label) {
+        byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= 255 ? bytes : Arrays.copyOf(bytes, 255);
+    }
+
+    /**
+     * Ajoute le message {@code data[offset, offset + length)} émis ou reçu sur la connexion {@code label}.
+     * À appeler depuis le seul thread écrivain.
+     */
+    public void record(boolean outbound, byte[] label, byte[] data, int offset, int length) {
+        if (closed) {
+            return;
+        }
+        long nanos = System.nanoTime() - baseNanos;
+        int size = RECORD_HEADER_SIZE + label.length + length;
+        if (segment.remaining() < size && !roll()) {
+            return;
+        }
+        int start = segment.position();
+        segment.position(start + 4);
+        segment.putLong(nanos);
+        segment.put((byte) (outbound ? 1 : 0));
+        segment.put((byte) label.length);
+        segment.put(label);
+        segment.put(data, offset, length);
+        segment.putInt(start, length);
+        records++;
+    }
+
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Synchronise le segment courant sur disque ; à appeler depuis le thread écrivain, qui cesse d'écrire.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segment.force();
+        background.shutdown();
+        System.out.println("CaptureJournal: " + records + " frame(s) recorded in " + directory
+                + " (" + (segmentIndex + 1) + " segment(s))");
+    }
+
+    /**
+     * Passe au segment préparé à l'avance ; s'il n'a pas pu être créé, la capture s'arrête sans gêner l'envoi.
+     */
+    private boolean roll() {
+        MappedByteBuffer full = segment;
+        background.execute(full::force);
+        try {
+            segment = nextSegment.join();
+        } catch (RuntimeException e) {
+            System.err.println("CaptureJournal: Capture stopped after " + records + " frame(s): " + e.getMessage());
+            closed = true;
+            background.shutdown();
+            return false;
+        }
+        segmentIndex++;
+        int following = segmentIndex + 1;
+        nextSegment = CompletableFuture.supplyAsync(() -> createSegmentUnchecked(following), background);
+        return true;
+    }
+
+    private MappedByteBuffer createSegmentUnchecked(int index) {
+        try {
+            return createSegment(index);
+        } catch (IOException e) {
+            throw new IllegalStateException("Segment de capture " + index + " impossible à créer : " + e.getMessage(), e);
+        }
+    }
+
+    private MappedByteBuffer createSegment(int index) throws IOException {
+        Path file = directory.resolve(segmentName(index));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // La projection reste valide après la fermeture du canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.putLong(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(index);
+            buffer.putLong(baseEpochMillis);
+            buffer.position(HEADER_SIZE);
+            return buffer;
+        }
+    }
+
+    private static String segmentName(int index) {
+        return String.format("segment-%06d.cap", index);
+    }
+
+    /**
+     * Lecture séquentielle d'un journal, segment après segment.
+     */
+    public static class Reader implements Closeable {
+        private final List<Path> segments;
+        private int nextSegment;
+        private MappedByteBuffer current;
+        private long baseEpochMillis = -1;
+
+        public Reader(Path directory) throws IOException {
+            try (Stream<Path> files = Files.list(directory)) {
+                this.segments = new ArrayList<>(files
+                        .filter(p -> p.getFileName().toString().matches("segment-\\d{6}\\.cap"))
+                        .sorted()
+                        .toList());
+            }
+            if (segments.isEmpty()) {
+                throw new IOException("Aucun segment de capture dans " + directory);
+            }
+        }
+
+        /**
+         * Instant de départ du journal (millisecondes epoch), connu après le premier {@link #next()}.
+         */
+        public long getBaseEpochMillis() {
+            return baseEpochMillis;
+        }
+
+        /**
+         * Enregistrement suivant, ou null à la fin du journal.
+         */
+        public Frame next() throws IOException {
+            while (true) {
+                if (current == null && !openNextSegment()) {
+                    return null;
+                }
+                if (current.remaining() >= RECORD_HEADER_SIZE) {
+                    int length = current.getInt();
+                    if (length > 0) {
+                        long nanos = current.getLong();
+                        boolean outbound = current.get() == 1;
+                        byte[] label = new byte[current.get() & 0xFF];
+                        current.get(label);
+                        byte[] message = new byte[length];
+                        current.get(message);
+                        return new Frame(nanos, outbound, new String(label, StandardCharsets.UTF_8), message);
+                    }
+                }
+                current = null; // fin des données du segment
+            }
+        }
+
+        private boolean openNextSegment() throws IOException {
+            if (nextSegment >= segments.size()) {
+                return false;
+            }
+            Path file = segments.get(nextSegment++);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                current = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (current.remaining() < HEADER_SIZE || current.getLong() != MAGIC) {
+                throw new IOException("Segment de capture invalide : " + file);
+            }
+            int version = current.getInt();
+            if (version != VERSION) {
+                throw new IOException("Version de capture non supportée (" + version + ") : " + file);
+            }
+            current.getInt();
+            baseEpochMillis = current.getLong();
+            current.position(HEADER_SIZE);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            current = null;
+        }
+    }
+}
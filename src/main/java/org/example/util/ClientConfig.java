@@ -0,0 +1,46 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Paramètres du client lus dans {@code client.properties} (classpath).
+ * Toute clé peut être surchargée au lancement par une propriété système (-Dcle=valeur).
+ */
+public class ClientConfig {
+    private static final String RESOURCE = "client.properties";
+    private static final Properties properties = load();
+
+    private static Properties load() {
+        Properties props = new Properties();
+        try (InputStream in = ClientConfig.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                props.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Impossible de lire " + RESOURCE + " : " + e.getMessage());
+        }
+        return props;
+    }
+
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key, properties.getProperty(key));
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,113 @@
+package org.example.util;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registre des métriques du client (Micrometer), lisible au format texte Prometheus.
+ * <p>
+ * Les compteurs et durées enregistrés sur le chemin d'envoi ne prennent aucun verrou
+ * (additionneurs par cellule) ; les jauges sont des fonctions lues seulement à l'export.
+ * Export, tous deux facultatifs :
+ * <ul>
+ *   <li>{@code metrics.httpPort} : {@code GET /metrics} sur un serveur HTTP local (0 = désactivé) ;</li>
+ *   <li>{@code metrics.dumpFile} : copie du texte écrite toutes les {@code metrics.dumpIntervalSeconds}
+ *   secondes, par remplacement atomique du fichier (vide = désactivé).</li>
+ * </ul>
+ */
+public final class ClientMetrics {
+
+    private static final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    private static HttpServer server;
+    private static ScheduledExecutorService dumper;
+    private static Path dumpFile;
+
+    private ClientMetrics() {
+    }
+
+    public static MeterRegistry registry() {
+        return registry;
+    }
+
+    /**
+     * Valeurs courantes de toutes les métriques, au format d'exposition Prometheus.
+     */
+    public static String scrape() {
+        return registry.scrape();
+    }
+
+    /**
+     * Démarre les exports configurés par {@code metrics.*}.
+     */
+    public static synchronized void start() throws IOException {
+        int port = ClientConfig.getInt("metrics.httpPort", 0);
+        if (port > 0 && server == null) {
+            server = HttpServer.create(new InetSocketAddress(ClientConfig.getString("metrics.httpHost", "127.0.0.1"), port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "metrics-http");
+                t.setDaemon(true);
+                return t;
+            }));
+            server.start();
+            System.out.println("ClientMetrics: Serving http://" + server.getAddress().getHostString() + ":"
+                    + server.getAddress().getPort() + "/metrics");
+        }
+        String file = ClientConfig.getString("metrics.dumpFile", "");
+        long intervalSeconds = ClientConfig.getLong("metrics.dumpIntervalSeconds", 10);
+        if (!file.isBlank() && intervalSeconds > 0 && dumper == null) {
+            dumpFile = Path.of(file);
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-dump");
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleAtFixedRate(ClientMetrics::dump, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Arrête les exports, après une dernière copie dans le fichier s'il y en a un.
+     */
+    public static synchronized void stop() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+            dump();
+        }
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private static void dump() {
+        try {
+            Path temp = dumpFile.resolveSibling(dumpFile.getFileName() + ".tmp");
+            Files.writeString(temp, scrape());
+            Files.move(temp, dumpFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("ClientMetrics: Cannot write " + dumpFile + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Découpage d'un enregistrement CSV (RFC 4180) : séparateur virgule, champs éventuellement entre
+ * guillemets, pouvant alors contenir virgules, sauts de ligne et guillemets doublés ({@code ""}).
+ * Les guillemets encadrants sont retirés ; les espaces sont conservés tels quels.
+ */
+public final class CsvParser {
+
+    private CsvParser() {
+    }
+
+    public static String[] parse(CharSequence record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int length = record.length();
+        for (int i = 0; i < length; i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < length && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Guillemet non fermé dans l'enregistrement CSV : " + record);
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
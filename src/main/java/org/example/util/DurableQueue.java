@@ -0,0 +1,396 @@
+package org.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * File persistante en ajout seul : chaque élément ajouté est sur disque avant d'être rendu au
+ * producteur, et le reste jusqu'à son acquittement, redémarrage du processus compris.
+ * <p>
+ * Les ajouts et acquittements de tous les threads passent par une file sans verrou vers un unique
+ * thread écrivain, qui les écrit par lots : une seule écriture et une seule synchronisation disque
+ * ({@code fsync}) par lot (group commit), quel que soit le nombre d'enregistrements. Le future d'un
+ * ajout est complété par son identifiant une fois le lot synchronisé.
+ * <p>
+ * Format : enregistrements {@code longueur (int) | CRC32C (int) | type (1 ajout, 2 acquittement) | identifiant (long)
+ * | contenu}. À l'ouverture, le fichier est relu jusqu'au premier enregistrement incomplet ou corrompu
+ * (écriture interrompue) ; les éléments non acquittés sont rendus par {@link #recovered()} et le fichier
+ * est réécrit sans les éléments acquittés. Il est de nouveau compacté en cours de route lorsqu'il dépasse
+ * {@code compactBytes} et que les éléments en attente en occupent moins de la moitié.
+ */
+public class DurableQueue implements Closeable {
+    private static final byte ADD = 1;
+    private static final byte ACK = 2;
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+    private static final int BODY_HEADER_SIZE = 1 + 8;
+    private static final int MAX_PAYLOAD = 1024 * 1024;
+
+    /**
+     * Élément en attente d'acquittement.
+     */
+    public record Entry(long id, byte[] payload) {
+    }
+
+    private record Operation(byte type, long id, byte[] payload, CompletableFuture<Long> durable) {
+    }
+
+    private final String name;
+    private final Path file;
+    private final int maxBatch;
+    private final long compactBytes;
+    private final AtomicLong nextId;
+    private final List<Entry> recovered;
+    private final Queue<Operation> operations = new ConcurrentLinkedQueue<>();
+    // Éléments écrits et non acquittés, tenus par le thread écrivain (pour le compactage)
+    private final Map<Long, byte[]> pending = new LinkedHashMap<>();
+    private volatile int pendingCount;
+    private long pendingBytes;
+    private FileChannel channel;
+    private long fileSize;
+    private final Thread writer;
+    private volatile boolean closing;
+    // Fichier dans un état inconnu après un échec d'écriture non rattrapé : plus aucun ajout n'est accepté
+    private volatile IOException failure;
+
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder committedRecords = new LongAdder();
+
+    public DurableQueue(String name, Path file, int maxBatch, long compactBytes) throws IOException {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("Taille de lot invalide pour la file " + name + " : " + maxBatch);
+        }
+        this.name = name;
+        this.file = file.toAbsolutePath();
+        this.maxBatch = maxBatch;
+        this.compactBytes = compactBytes;
+        Files.createDirectories(this.file.getParent());
+        long maxId = recover();
+        this.nextId = new AtomicLong(maxId + 1);
+        this.recovered = new ArrayList<>();
+        for (Map.Entry<Long, byte[]> entry : pending.entrySet()) {
+            recovered.add(new Entry(entry.getKey(), entry.getValue()));
+        }
+        compact();
+        this.writer = new Thread(this::writeLoop, "durable-queue-" + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Éléments non acquittés trouvés à l'ouverture, dans leur ordre d'ajout.
+     */
+    public List<Entry> recovered() {
+        return List.copyOf(recovered);
+    }
+
+    /**
+     * Ajoute un élément ; le future est complété par son identifiant une fois l'élément synchronisé sur disque,
+     * ou exceptionnellement si l'écriture échoue ou si la file est fermée.
+     */
+    public CompletableFuture<Long> add(byte[] payload) {
+        if (payload.length > MAX_PAYLOAD) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Élément trop grand : " + payload.length + " octets"));
+        }
+        CompletableFuture<Long> durable = new CompletableFuture<>();
+        submit(new Operation(ADD, nextId.getAndIncrement(), payload, durable));
+        return durable;
+    }
+
+    /**
+     * Acquitte l'élément : il ne sera plus rendu au prochain démarrage.
+     */
+    public void ack(long id) {
+        submit(new Operation(ACK, id, null, null));
+    }
+
+    public int pendingCount() {
+        return pendingCount;
+    }
+
+    public String summary() {
+        long batches = commits.sum();
+        long records = committedRecords.sum();
+        return "File " + name + " : " + pendingCount + " élément(s) en attente, " + records + " enregistrement(s) en "
+                + batches + " synchronisation(s) disque" + (batches > 0 ? String.format(" (%.1f par fsync)", (double) records / batches) : "") + ".";
+    }
+
+    /**
+     * Écrit les opérations encore en file puis ferme le fichier.
+     */
+    @Override
+    public void close() {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(Operation operation) {
+        if (closing || failure != null) {
+            reject(operation);
+            return;
+        }
+        operations.add(operation);
+        LockSupport.unpark(writer);
+        // Fermeture concurrente : si l'écrivain est déjà parti, l'opération ne sera jamais écrite
+        if (closing && operations.remove(operation)) {
+            reject(operation);
+        }
+    }
+
+    private void reject(Operation operation) {
+        if (operation.durable() != null) {
+            operation.durable().completeExceptionally(failure != null
+                    ? new IOException("File " + name + " hors service", failure)
+                    : new IllegalStateException("File " + name + " fermée"));
+        }
+    }
+
+    private void writeLoop() {
+        List<Operation> batch = new ArrayList<>(maxBatch);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        while (true) {
+            Operation operation;
+            while (batch.size() < maxBatch && (operation = operations.poll()) != null) {
+                batch.add(operation);
+            }
+            if (batch.isEmpty()) {
+                if (closing) {
+                    closeChannel();
+                    // Opérations ajoutées pendant la fermeture : rejetées plutôt que laissées sans réponse
+                    while ((operation = operations.poll()) != null) {
+                        reject(operation);
+                    }
+                    return;
+                }
+                LockSupport.park(this);
+                continue;
+            }
+            buffer = commit(batch, buffer);
+            batch.clear();
+            if (failure == null && fileSize > compactBytes && pendingBytes * 2 < fileSize) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    System.err.println("DurableQueue[" + name + "]: Compaction failed: " + e.getMessage());
+                    if (channel == null) {
+                        failure = e; // fichier remplacé mais non rouvert
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Écrit le lot en une fois, le synchronise sur disque, puis rend la main aux producteurs.
+     */
+    private ByteBuffer commit(List<Operation> batch, ByteBuffer buffer) {
+        int size = 0;
+        for (Operation operation : batch) {
+            size += recordSize(operation.payload());
+        }
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        for (Operation operation : batch) {
+            writeRecord(buffer, operation.type(), operation.id(), operation.payload());
+        }
+        buffer.flip();
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            System.err.println("DurableQueue[" + name + "]: Write failed for " + batch.size() + " record(s): " + e.getMessage());
+            discardPartialWrite(e);
+            for (Operation operation : batch) {
+                if (operation.durable() != null) {
+                    operation.durable().completeExceptionally(e);
+                }
+            }
+            return buffer;
+        }
+        fileSize += size;
+        commits.increment();
+        committedRecords.add(batch.size());
+        for (Operation operation : batch) {
+            apply(operation.type(), operation.id(), operation.payload());
+        }
+        for (Operation operation : batch) {
+            if (operation.durable() != null) {
+                operation.durable().complete(operation.id());
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Ramène le fichier à la fin du dernier lot synchronisé : un enregistrement partiel laissé au milieu
+     * ferait ignorer à la relecture tous les lots suivants. Si c'est impossible, la file est mise hors service.
+     */
+    private void discardPartialWrite(IOException cause) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            channel.truncate(fileSize);
+            channel.force(false);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            failure = e;
+            System.err.println("DurableQueue[" + name + "]: Cannot restore " + file + " to " + fileSize
+                    + " bytes, queue disabled: " + e.getMessage());
+        }
+    }
+
+    private void apply(byte type, long id, byte[] payload) {
+        if (type == ADD) {
+            pending.put(id, payload);
+            pendingBytes += recordSize(payload);
+        } else {
+            byte[] removed = pending.remove(id);
+            if (removed != null) {
+                pendingBytes -= recordSize(removed);
+            }
+        }
+        pendingCount = pending.size();
+    }
+
+    /**
+     * Relit le fichier existant et reconstitue les éléments non acquittés.
+     * @return plus grand identifiant rencontré (0 si aucun).
+     */
+    private long recover() throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long maxId = 0;
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32C crc = new CRC32C();
+        while (data.remaining() >= RECORD_HEADER_SIZE) {
+            int start = data.position();
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length < BODY_HEADER_SIZE || length > BODY_HEADER_SIZE + MAX_PAYLOAD || data.remaining() < length) {
+                data.position(start);
+                break;
+            }
+            crc.reset();
+            crc.update(data.array(), data.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                data.position(start);
+                break;
+            }
+            byte type = data.get();
+            long id = data.getLong();
+            byte[] payload = new byte[length - BODY_HEADER_SIZE];
+            data.get(payload);
+            apply(type, id, type == ADD ? payload : null);
+            maxId = Math.max(maxId, id);
+        }
+        if (data.hasRemaining()) {
+            System.err.println("DurableQueue[" + name + "]: " + data.remaining() + " byte(s) of incomplete or corrupted records ignored at the end of " + file);
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("DurableQueue[" + name + "]: " + pending.size() + " unacknowledged record(s) recovered from " + file);
+        }
+        return maxId;
+    }
+
+    /**
+     * Réécrit le fichier avec les seuls éléments en attente (fichier temporaire synchronisé puis renommé).
+     */
+    private void compact() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long size = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            for (Map.Entry<Long, byte[]> entry : pending.entrySet()) {
+                int recordSize = recordSize(entry.getValue());
+                if (buffer.remaining() < recordSize) {
+                    flushFully(out, buffer);
+                    if (buffer.capacity() < recordSize) {
+                        buffer = ByteBuffer.allocate(recordSize);
+                    }
+                }
+                writeRecord(buffer, ADD, entry.getKey(), entry.getValue());
+                size += recordSize;
+            }
+            flushFully(out, buffer);
+            out.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        closeChannel();
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = size;
+    }
+
+    private static void flushFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("DurableQueue[" + name + "]: Error closing " + file + ": " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    private static int recordSize(byte[] payload) {
+        return RECORD_HEADER_SIZE + BODY_HEADER_SIZE + (payload != null ? payload.length : 0);
+    }
+
+    private static void writeRecord(ByteBuffer buffer, byte type, long id, byte[] payload) {
+        int start = buffer.position();
+        int length = BODY_HEADER_SIZE + (payload != null ? payload.length : 0);
+        buffer.putInt(length);
+        buffer.putInt(0); // CRC, calculé une fois le corps écrit
+        buffer.put(type);
+        buffer.putLong(id);
+        if (payload != null) {
+            buffer.put(payload);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), buffer.arrayOffset() + start + RECORD_HEADER_SIZE, length);
+        buffer.putInt(start + 4, (int) crc.getValue());
+    }
+}
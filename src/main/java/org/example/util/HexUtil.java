@@ -1,11 +1,28 @@
 package org.example.util;
 
 public class HexUtil {
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     public static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02X ", b));
+        return bytesToHex(bytes, 0, bytes.length);
+    }
+
+    public static String bytesToHex(byte[] bytes, int offset, int length) {
+        StringBuilder sb = new StringBuilder(length * 3);
+        appendHex(sb, bytes, offset, length);
+        return sb.toString();
+    }
+
+    /**
+     * Octets en hexadécimal séparés par des espaces ("30 31 ..."), via une table de correspondance.
+     */
+    public static void appendHex(StringBuilder sb, byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (i > offset) {
+                sb.append(' ');
+            }
+            int b = bytes[i] & 0xFF;
+            sb.append(HEX_DIGITS[b >>> 4]).append(HEX_DIGITS[b & 0x0F]);
         }
-        return sb.toString().trim();
     }
 }
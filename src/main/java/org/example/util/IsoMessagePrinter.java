@@ -3,6 +3,8 @@ package org.example.util;
 import org.jpos.iso.ISOMsg;
 import org.jpos.iso.ISOException;
 
+import java.nio.charset.StandardCharsets;
+
 public class IsoMessagePrinter {
 
     /**
@@ -10,43 +12,50 @@ public class IsoMessagePrinter {
      * et les champs présents avec leurs significations.
      */
     public static void printISOMessage(ISOMsg msg, byte[] rawData) {
+        StringBuilder sb = new StringBuilder(1024);
+        appendISOMessage(sb, msg, rawData, rawData != null ? rawData.length : 0);
+        System.out.print(sb);
+    }
+
+    /**
+     * Même présentation que {@link #printISOMessage}, ajoutée à {@code sb} (une ligne par champ).
+     */
+    public static void appendISOMessage(StringBuilder sb, ISOMsg msg, byte[] rawData, int rawLength) {
         if (msg == null) {
-            System.out.println("Message ISO est null");
+            sb.append("Message ISO est null").append(System.lineSeparator());
             return;
         }
 
         try {
-            System.out.println("=== Message ISO ===");
-            System.out.println("MTI              : " + msg.getMTI());
+            String mti = msg.getMTI();
+            sb.append("=== Message ISO ===").append(System.lineSeparator());
+            sb.append("MTI              : ").append(mti).append(System.lineSeparator());
 
             // Extraction de la bitmap à partir des données brutes
-            String bitmapHex = extractBitmapFromRawData(rawData);
-            if (bitmapHex != null) {
-                System.out.println("Bitmap           : " + bitmapHex);
-            } else {
-                System.out.println("Bitmap           : [non trouvée]");
-            }
+            String bitmapHex = extractBitmapFromRawData(rawData, rawLength);
+            sb.append("Bitmap           : ").append(bitmapHex != null ? bitmapHex : "[non trouvée]").append(System.lineSeparator());
 
             // Affichage des champs présents avec leur signification
             for (int i = 2; i <= 128; i++) {
                 if (msg.hasField(i)) {
-                    String fieldName = getFieldName(i);
-                    System.out.printf("Champ %-3d (%-22s): %s%n", i, fieldName, msg.getString(i));
+                    sb.append(String.format("Champ %-3d (%-22s): %s%n", i, getFieldName(i), msg.getString(i)));
                 }
             }
 
-            System.out.println("==================");
+            sb.append("==================").append(System.lineSeparator());
 
         } catch (ISOException e) {
             System.err.println("Erreur lors de l'affichage du message ISO : " + e.getMessage());
         }
     }
 
-    private static String extractBitmapFromRawData(byte[] data) {
-        if (data == null || data.length < 12) return null;
-        byte[] bitmapBytes = new byte[8];
-        System.arraycopy(data, 4, bitmapBytes, 0, 8); // skip 4 bytes length header
-        return HexUtil.bytesToHex(bitmapBytes);
+    /**
+     * Bitmap ISO 8583 ASCII : 16 caractères hexadécimaux après la MTI, 32 si le bit 1 annonce une bitmap secondaire.
+     */
+    private static String extractBitmapFromRawData(byte[] data, int length) {
+        if (data == null || length < 20) return null;
+        int bitmapLength = Character.digit(data[4], 16) >= 8 && length >= 36 ? 32 : 16;
+        return new String(data, 4, bitmapLength, StandardCharsets.US_ASCII);
     }
 
     private static String getFieldName(int fieldNumber) {
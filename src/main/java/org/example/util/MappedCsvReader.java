@@ -0,0 +1,138 @@
+package org.example.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lecture séquentielle d'un fichier CSV de taille quelconque par fenêtres projetées en mémoire.
+ * Seule la fenêtre courante est projetée et un seul enregistrement est décodé à la fois :
+ * la mémoire utilisée ne dépend pas de la taille du fichier. La première ligne est l'en-tête.
+ * <p>
+ * Les fins d'enregistrement sont cherchées hors guillemets : un champ entre guillemets peut
+ * contenir un saut de ligne. Les lignes vides sont ignorées. Non thread-safe ; plusieurs threads peuvent
+ * toutefois se partager le fichier en ne gardant sous verrou que la lecture des octets d'un enregistrement
+ * ({@link #nextRaw()}), son découpage par {@link #parse(byte[])} se faisant ensuite hors verrou.
+ */
+public class MappedCsvReader implements Closeable {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Path path;
+    private final long windowSize;
+    private final FileChannel channel;
+    private final long size;
+    private final String[] header;
+    private final long dataStart;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    public MappedCsvReader(Path path) throws IOException {
+        this(path, WINDOW_SIZE);
+    }
+
+    /**
+     * Taille de fenêtre réglable pour les tests : un enregistrement à cheval sur deux fenêtres sans fichier géant.
+     */
+    MappedCsvReader(Path path, long windowSize) throws IOException {
+        this.path = path;
+        this.windowSize = windowSize;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        byte[] firstRecord = nextRaw();
+        if (firstRecord == null) {
+            channel.close();
+            throw new IllegalArgumentException("Fichier CSV vide : " + path);
+        }
+        this.header = parse(firstRecord);
+        this.dataStart = position;
+    }
+
+    public String[] getHeader() {
+        return header.clone();
+    }
+
+    /**
+     * Octets de l'enregistrement suivant, sans sa fin de ligne et non décodés.
+     * @return null en fin de fichier.
+     */
+    public byte[] nextRaw() throws IOException {
+        while (position < size) {
+            long end = findRecordEnd();
+            long next = end < size ? end + 1 : end; // saute le '\n'
+            int length = (int) (end - position);
+            if (length > 0 && window.get((int) (end - 1 - windowStart)) == '\r') {
+                length--;
+            }
+            if (length == 0) {
+                position = next;
+                continue;
+            }
+            byte[] record = new byte[length];
+            window.get((int) (position - windowStart), record, 0, length);
+            position = next;
+            return record;
+        }
+        return null;
+    }
+
+    /**
+     * Champs d'un enregistrement lu par {@link #nextRaw()}.
+     */
+    public static String[] parse(byte[] record) {
+        return CsvParser.parse(new String(record, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Revient au premier enregistrement après l'en-tête.
+     */
+    public void rewind() {
+        position = dataStart;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Position (absolue) du '\n' hors guillemets terminant l'enregistrement courant, ou taille du fichier.
+     * La fenêtre est reprojetée à partir du début de l'enregistrement si celui-ci la dépasse.
+     */
+    private long findRecordEnd() throws IOException {
+        if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+            map(position);
+        }
+        while (true) {
+            boolean quoted = false;
+            int limit = window.limit();
+            for (int i = (int) (position - windowStart); i < limit; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    return windowStart + i;
+                }
+            }
+            if (windowStart + limit >= size) {
+                return size;
+            }
+            if (windowStart == position) {
+                throw new IOException("Enregistrement de plus de " + windowSize + " octets dans " + path
+                        + " (guillemet non fermé ?) à la position " + position);
+            }
+            map(position);
+        }
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+    }
+}
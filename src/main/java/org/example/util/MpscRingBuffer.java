@@ -0,0 +1,82 @@
+package org.example.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * File circulaire bornée sans verrou, plusieurs producteurs / un seul consommateur.
+ * Chaque case porte un numéro de séquence : un producteur réserve une case par CAS sur la queue
+ * puis la publie en avançant sa séquence ; le consommateur ne lit que les cases publiées.
+ * Quand la file est pleine, {@link #offer} échoue immédiatement au lieu de bloquer le producteur.
+ */
+public class MpscRingBuffer<E> {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // réservé au consommateur
+
+    public MpscRingBuffer(int requestedCapacity) {
+        int capacity = 2;
+        while (capacity < requestedCapacity) {
+            capacity <<= 1; // puissance de 2 : l'indice de case est un simple masque
+        }
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return false si la file est pleine (l'élément n'est pas ajouté).
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long diff = sequences.getAcquire(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    sequences.setRelease(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false;
+            }
+            // diff > 0 : case prise par un autre producteur entre-temps, on réessaie
+        }
+    }
+
+    /**
+     * À n'appeler que depuis le thread consommateur. Lecture volatile de la queue : un consommateur qui
+     * signale qu'il va s'endormir avant cet appel ne peut pas manquer un élément ajouté après.
+     * @return true si aucune case n'a été réservée par un producteur depuis le dernier {@link #poll()}.
+     */
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    /**
+     * À n'appeler que depuis le thread consommateur.
+     * @return l'élément suivant, ou null si aucun n'est publié.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        int index = (int) head & mask;
+        if (sequences.getAcquire(index) != head + 1) {
+            return null;
+        }
+        E element = (E) slots[index];
+        slots[index] = null;
+        sequences.setRelease(index, head + slots.length);
+        head++;
+        return element;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.util;
+
+import org.jpos.iso.ISOPackager;
+import org.jpos.iso.packager.ISO87APackager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Packagers ISO 8583 partagés. Un packager jPOS ne porte aucun état propre à un message :
+ * une seule instance par format suffit pour tous les threads, au lieu d'en construire
+ * (avec toute sa table de champs) une par message envoyé ou reçu.
+ */
+public class PackagerRegistry {
+    public static final String ISO87A = "ISO87A";
+
+    private static final Map<String, ISOPackager> packagers = new ConcurrentHashMap<>();
+    private static final Map<String, Supplier<ISOPackager>> factories = Map.of(ISO87A, ISO87APackager::new);
+
+    private PackagerRegistry() {
+    }
+
+    /**
+     * Packager ISO 8583:1987 ASCII utilisé par le simulateur et les FE.
+     */
+    public static ISOPackager iso87() {
+        return get(ISO87A);
+    }
+
+    /**
+     * Packager partagé du format donné, construit au premier appel.
+     */
+    public static ISOPackager get(String format) {
+        return packagers.computeIfAbsent(format, f -> {
+            Supplier<ISOPackager> factory = factories.get(f);
+            if (factory == null) {
+                throw new IllegalArgumentException("Format de packager inconnu : " + f);
+            }
+            return factory.get();
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numéros séquentiels dans [min, max], repartant à min après max, distribués sans verrou
+ * à des threads concurrents (un simple incrément atomique par numéro).
+ * <p>
+ * Les numéros sont réservés par blocs de {@code blockSize} : la fin du bloc courant est écrite
+ * dans le fichier d'état (écriture atomique et synchronisée sur disque) avant que le premier numéro
+ * du bloc ne soit distribué. Au redémarrage, la séquence reprend après le dernier bloc réservé :
+ * aucun numéro déjà distribué n'est réutilisé, au prix d'au plus un bloc sauté. Seul le passage
+ * d'un bloc au suivant prend un verrou.
+ */
+public class SequenceAllocator {
+    private final String name;
+    private final long min;
+    private final long span;
+    private final int blockSize;
+    private final Path stateFile;
+
+    // Position brute (jamais ramenée dans l'intervalle) du prochain numéro
+    private final AtomicLong position;
+    // Fin (exclue) des positions réservées dans le fichier d'état
+    private volatile long reservedUntil;
+
+    public SequenceAllocator(String name, long min, long max, int blockSize, Path stateFile) {
+        if (min < 0 || max < min || blockSize < 1) {
+            throw new IllegalArgumentException("Séquence " + name + " invalide : [" + min + ", " + max + "], blocs de " + blockSize);
+        }
+        this.name = name;
+        this.min = min;
+        this.span = max - min + 1;
+        this.blockSize = blockSize;
+        this.stateFile = stateFile;
+        long start = readState();
+        this.position = new AtomicLong(start);
+        this.reservedUntil = start;
+    }
+
+    /**
+     * Séquence dont l'état est conservé dans {@code <sequence.stateDir>/<name>.seq},
+     * réservée par blocs de {@code sequence.blockSize}.
+     */
+    public static SequenceAllocator fromConfig(String name, long min, long max) {
+        Path dir = Path.of(ClientConfig.getString("sequence.stateDir", "state"));
+        return new SequenceAllocator(name, min, max, ClientConfig.getInt("sequence.blockSize", 1000),
+                dir.resolve(name + ".seq"));
+    }
+
+    public long next() {
+        long raw = position.getAndIncrement();
+        if (raw >= reservedUntil) {
+            reserveThrough(raw);
+        }
+        return min + raw % span;
+    }
+
+    private synchronized void reserveThrough(long raw) {
+        if (raw < reservedUntil) {
+            return; // bloc déjà réservé par un autre thread
+        }
+        long until = (raw / blockSize + 1) * blockSize;
+        writeState(until);
+        reservedUntil = until;
+    }
+
+    private long readState() {
+        try {
+            if (!Files.exists(stateFile)) {
+                return 0;
+            }
+            return Long.parseLong(Files.readString(stateFile, StandardCharsets.US_ASCII).trim());
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Fichier d'état de la séquence " + name + " illisible : " + stateFile, e);
+        }
+    }
+
+    private void writeState(long until) {
+        try {
+            Path dir = stateFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(stateFile.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap((until + System.lineSeparator()).getBytes(StandardCharsets.US_ASCII)));
+                channel.force(true);
+            }
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Les envois continuent ; seul le redémarrage risque de réutiliser des numéros de ce bloc
+            System.err.println("Impossible d'enregistrer l'état de la séquence " + name + " dans " + stateFile + " : " + e.getMessage());
+        }
+    }
+}
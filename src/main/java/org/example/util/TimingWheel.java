@@ -0,0 +1,155 @@
+package org.example.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Roue de temporisation hachée (hashed timing wheel) pour un grand nombre de délais courts
+ * (expiration des requêtes en vol, relances).
+ * <p>
+ * Le temps est découpé en pas de {@code tickMs} ; chaque délai est rangé dans l'alvéole de son pas
+ * d'échéance modulo la taille de la roue, avec le nombre de tours restant avant échéance.
+ * Armer ou annuler un délai coûte O(1) quel que soit le nombre de délais en cours : l'armement passe
+ * par une file sans verrou vidée par le thread de la roue, l'annulation ne fait que marquer le délai,
+ * retiré lors du passage sur son alvéole. La précision est d'un pas.
+ * <p>
+ * Les tâches échues s'exécutent sur le thread de la roue : elles doivent rester brèves et non bloquantes.
+ */
+public class TimingWheel {
+    private final String name;
+    private final long tickNanos;
+    private final Timeout[] buckets; // tête de liste chaînée par alvéole
+    private final int mask;
+    private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long currentTick; // réservé au thread de la roue
+
+    /**
+     * Délai armé ; {@link #cancel()} empêche l'exécution de la tâche si elle n'a pas encore eu lieu.
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineTick;
+        private long remainingRounds;
+        private Timeout next;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    public TimingWheel(String name, long tickMs, int requestedSize) {
+        if (tickMs < 1 || requestedSize < 1) {
+            throw new IllegalArgumentException("Roue " + name + " invalide : pas de " + tickMs + " ms, " + requestedSize + " alvéoles");
+        }
+        int size = 2;
+        while (size < requestedSize) {
+            size <<= 1; // puissance de 2 : l'alvéole est un simple masque
+        }
+        this.name = name;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, "timing-wheel-" + name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Roue configurée par {@code timeout.tickMs} et {@code timeout.wheelSize}.
+     */
+    public static TimingWheel fromConfig(String name) {
+        return new TimingWheel(name, ClientConfig.getLong("timeout.tickMs", 10), ClientConfig.getInt("timeout.wheelSize", 512));
+    }
+
+    /**
+     * Exécute {@code task} sur le thread de la roue dans {@code delayMs} millisecondes (arrondi au pas supérieur).
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        long elapsed = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMs, 0));
+        Timeout timeout = new Timeout(task, (elapsed + tickNanos - 1) / tickNanos);
+        additions.add(timeout);
+        return timeout;
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        while (running) {
+            long tickDeadline = startNanos + (currentTick + 1) * tickNanos;
+            long wait = tickDeadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            // Rattrapage des pas manqués (pause GC...) : chaque alvéole est traitée dans l'ordre
+            currentTick++;
+            transferAdditions();
+            expire(buckets[(int) (currentTick & mask)], (int) (currentTick & mask));
+        }
+    }
+
+    private void transferAdditions() {
+        Timeout timeout;
+        while ((timeout = additions.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long tick = Math.max(timeout.deadlineTick, currentTick); // échéance déjà passée : alvéole courante
+            timeout.remainingRounds = (tick - currentTick) / buckets.length;
+            int index = (int) (tick & mask);
+            timeout.next = buckets[index];
+            buckets[index] = timeout;
+        }
+    }
+
+    private void expire(Timeout head, int index) {
+        Timeout previous = null;
+        Timeout timeout = head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            boolean due = timeout.remainingRounds == 0;
+            if (due || timeout.cancelled) {
+                if (previous == null) {
+                    buckets[index] = next;
+                } else {
+                    previous.next = next;
+                }
+                timeout.next = null;
+                if (due && !timeout.cancelled) {
+                    runTask(timeout);
+                }
+            } else {
+                timeout.remainingRounds--;
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    private void runTask(Timeout timeout) {
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            System.err.println("TimingWheel[" + name + "]: task failed: " + e);
+        }
+    }
+}
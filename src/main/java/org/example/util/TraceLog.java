@@ -0,0 +1,166 @@
+package org.example.util;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Trace des messages ISO émis et reçus, hors du chemin critique.
+ * Le thread d'envoi (ou la boucle réseau) se contente de copier les octets du message dans
+ * une file circulaire sans verrou ; un thread de fond dépile par lots, décode et formate
+ * les messages puis les écrit en une seule écriture par lot. Sans trace à écrire, ce thread dort
+ * jusqu'à ce qu'un producteur le réveille : aucun réveil périodique à vide.
+ * <p>
+ * Niveaux ({@code trace.level}) : OFF (rien), SUMMARY (une ligne par message),
+ * FULL (hexadécimal complet et détail des champs, comme auparavant).
+ */
+public final class TraceLog {
+
+    public enum Level { OFF, SUMMARY, FULL }
+
+    private static final int BATCH_SIZE = ClientConfig.getInt("trace.batchSize", 256);
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    private static final Level level = Level.valueOf(ClientConfig.getString("trace.level", "FULL").toUpperCase());
+    private static final MpscRingBuffer<Record> buffer = new MpscRingBuffer<>(ClientConfig.getInt("trace.bufferSize", 65536));
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile boolean closing = false;
+    // Écrivain sur le point de dormir ou endormi : le prochain producteur doit le réveiller
+    private static volatile boolean writerParked = false;
+    private static final Thread writer = startWriter();
+
+    private record Record(long timestampMillis, boolean outbound, String label, byte[] data) {
+    }
+
+    private TraceLog() {
+    }
+
+    /**
+     * Message émis sur la connexion {@code label}. Les octets sont recopiés : le tampon peut être réutilisé au retour.
+     */
+    public static void sent(String label, byte[] data, int offset, int length) {
+        enqueue(true, label, data, offset, length);
+    }
+
+    /**
+     * Message reçu sur la connexion {@code label}.
+     */
+    public static void received(String label, byte[] data, int offset, int length) {
+        enqueue(false, label, data, offset, length);
+    }
+
+    /**
+     * Écrit les traces encore en file puis arrête le thread d'écriture.
+     */
+    public static void close() {
+        if (writer == null || closing) {
+            return;
+        }
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void enqueue(boolean outbound, String label, byte[] data, int offset, int length) {
+        if (level == Level.OFF) {
+            return;
+        }
+        byte[] copy = new byte[length];
+        System.arraycopy(data, offset, copy, 0, length);
+        if (!buffer.offer(new Record(System.currentTimeMillis(), outbound, label, copy))) {
+            // File pleine : on perd la trace plutôt que de ralentir l'envoi
+            dropped.incrementAndGet();
+        } else if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private static Thread startWriter() {
+        if (level == Level.OFF) {
+            return null;
+        }
+        Thread thread = new Thread(TraceLog::writeLoop, "TraceWriter");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void writeLoop() {
+        StringBuilder batch = new StringBuilder(64 * 1024);
+        while (true) {
+            int count = 0;
+            Record record;
+            while (count < BATCH_SIZE && (record = buffer.poll()) != null) {
+                format(batch, record);
+                count++;
+            }
+            long lost = dropped.getAndSet(0);
+            if (lost > 0) {
+                batch.append("[trace] ").append(lost).append(" message(s) non tracé(s), file pleine").append(System.lineSeparator());
+            }
+            if (batch.length() > 0) {
+                System.out.print(batch);
+                batch.setLength(0);
+            }
+            if (count == 0) {
+                if (closing) {
+                    System.out.flush();
+                    return;
+                }
+                // Annonce avant la dernière vérification : un ajout concurrent voit l'annonce et réveille l'écrivain
+                writerParked = true;
+                if (buffer.isEmpty() && !closing) {
+                    LockSupport.park(TraceLog.class);
+                }
+                writerParked = false;
+            }
+        }
+    }
+
+    private static void format(StringBuilder sb, Record record) {
+        ISOMsg msg = new ISOMsg();
+        String mti;
+        try {
+            msg.setPackager(PackagerRegistry.iso87());
+            msg.unpack(record.data());
+            mti = msg.getMTI();
+        } catch (ISOException e) {
+            msg = null;
+            mti = "????";
+        }
+
+        sb.append("[trace] ").append(TIME_FORMAT.format(Instant.ofEpochMilli(record.timestampMillis())))
+                .append(record.outbound() ? " >> " : " << ").append(record.label())
+                .append(' ').append(mti)
+                .append(" STAN=").append(field(msg, 11))
+                .append(" Réf=").append(field(msg, 37))
+                .append(" RC=").append(field(msg, 39))
+                .append(" NET=").append(field(msg, 70))
+                .append(" (").append(record.data().length).append(" octets)").append(System.lineSeparator());
+
+        if (level == Level.FULL) {
+            sb.append(record.outbound() ? "Message ISO brut envoyé (hex) : " : "Message ISO brut reçu (hex) : ");
+            HexUtil.appendHex(sb, record.data(), 0, record.data().length);
+            sb.append(System.lineSeparator());
+            if (msg != null) {
+                IsoMessagePrinter.appendISOMessage(sb, msg, record.data(), record.data().length);
+            }
+        }
+    }
+
+    private static String field(ISOMsg msg, int field) {
+        String value = msg != null ? msg.getString(field) : null;
+        return value != null ? value : "-";
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Valeurs pondérées au format {@code valeur:poids,valeur:poids,...} ;
+ * le tirage est une recherche dichotomique dans les poids cumulés.
+ */
+public class WeightedTable<T> {
+    private final List<T> values;
+    private final long[] cumulativeWeights;
+
+    private WeightedTable(List<T> values, long[] cumulativeWeights) {
+        this.values = values;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    public static <T> WeightedTable<T> parse(String spec, Function<String, T> parser) {
+        List<T> values = new ArrayList<>();
+        List<Long> weights = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String trimmed = entry.trim();
+            // Le poids suit le dernier ':' (la valeur peut elle-même en contenir, ex : bin:longueur)
+            int separator = trimmed.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Poids manquant (valeur:poids attendu) : " + trimmed);
+            }
+            values.add(parser.apply(trimmed.substring(0, separator)));
+            weights.add(Long.parseLong(trimmed.substring(separator + 1)));
+        }
+        long[] cumulative = new long[weights.size()];
+        long total = 0;
+        for (int i = 0; i < cumulative.length; i++) {
+            if (weights.get(i) < 0) {
+                throw new IllegalArgumentException("Poids négatif dans : " + spec);
+            }
+            total += weights.get(i);
+            cumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Aucun poids positif dans : " + spec);
+        }
+        return new WeightedTable<>(List.copyOf(values), cumulative);
+    }
+
+    public List<T> getValues() {
+        return values;
+    }
+
+    /**
+     * Valeur tirée pour un nombre aléatoire quelconque (64 bits).
+     */
+    public T pick(long random) {
+        long target = Long.remainderUnsigned(random, cumulativeWeights[cumulativeWeights.length - 1]);
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] > target) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return values.get(low);
+    }
+}
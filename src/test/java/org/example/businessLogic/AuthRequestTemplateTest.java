@@ -0,0 +1,75 @@
+package org.example.businessLogic;
+
+import org.example.util.CsvParser;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthRequestTemplateTest {
+    private static AuthRequestTemplate template;
+
+    @BeforeAll
+    static void loadTemplate() throws Exception {
+        try (InputStream in = AuthRequestTemplateTest.class.getResourceAsStream("/auth_template.txt")) {
+            assertNotNull(in, "auth_template.txt absent du classpath");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            reader.readLine(); // en-tête
+            template = new AuthRequestTemplate(CsvParser.parse(reader.readLine()));
+        }
+    }
+
+    @Test
+    void writePackedPatchesIdsAndDateTime() throws Exception {
+        byte[] packed = new byte[template.getPackedLength()];
+        long second = template.writePacked(packed, 0, 4242, 629004000123L);
+
+        ISOMsg msg = template.newRequest(null, "000000000001");
+        msg.unpack(packed);
+        assertEquals("004242", msg.getString(11));
+        assertEquals("629004000123", msg.getString(37));
+        String gmt = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("MMddHHmmss"));
+        assertEquals(gmt, msg.getString(7));
+    }
+
+    @Test
+    void sentRequestRebuildsPackedRequestExactly() throws Exception {
+        int header = 2;
+        byte[] frame = new byte[header + template.getPackedLength()];
+        long second = template.writePacked(frame, header, 17, 629004000017L);
+
+        byte[] rebuilt = template.sentRequest(17, 629004000017L, second).pack();
+        byte[] written = new byte[template.getPackedLength()];
+        System.arraycopy(frame, header, written, 0, written.length);
+        assertArrayEquals(written, rebuilt);
+    }
+
+    @Test
+    void newRequestIsDatedNow() throws Exception {
+        long before = System.currentTimeMillis() / 1000;
+        ISOMsg msg = template.newRequest("000001", "629004000001");
+        long after = System.currentTimeMillis() / 1000;
+
+        String transmission = msg.getString(7);
+        boolean current = false;
+        for (long second = before; second <= after; second++) {
+            current |= LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC)
+                    .format(DateTimeFormatter.ofPattern("MMddHHmmss")).equals(transmission);
+        }
+        assertTrue(current, "champ 7 non rafraîchi : " + transmission);
+        assertEquals(6, msg.getString(12).length());
+        assertEquals(4, msg.getString(13).length());
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.businessLogic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bornes d'acceptation de chaque contrôle : une ligne par valeur, avec le résultat attendu.
+ */
+class FieldChecksTest {
+
+    @Test
+    void digits() {
+        check(FieldChecks.digits(1, 6), new Object[][] {
+                {"1", true}, {"123456", true}, {"", false}, {"1234567", false},
+                {"12a456", false}, {" 12345", false}, {"-1", false},
+        });
+    }
+
+    @Test
+    void length() {
+        check(FieldChecks.length(1, 12), new Object[][] {
+                {"A", true}, {"REF 00000001", true}, {"", false}, {"1234567890123", false},
+        });
+    }
+
+    @Test
+    void luhnPan() {
+        check(FieldChecks.luhnPan(), new Object[][] {
+                {"4007384990155023", true},
+                {"4007384990155024", false},         // mauvaise clé
+                {"4007384990155032", false},         // deux chiffres intervertis
+                {"4222222222222", true},             // 13 chiffres
+                {"422222222222", false},             // 12 chiffres
+                {"6011000000000000001", true},       // 19 chiffres
+                {"60110000000000000001", false},     // 20 chiffres
+                {"4007 3849 9015 5023", false},
+                {"400738499015502X", false},
+        });
+    }
+
+    @Test
+    void monthDayTime() {
+        check(FieldChecks.monthDayTime(), new Object[][] {
+                {"0101000000", true}, {"1231235959", true},
+                {"0001000000", false},               // mois 00
+                {"1301000000", false},               // mois 13
+                {"0100000000", false},               // jour 00
+                {"0132000000", false},               // jour 32
+                {"0101240000", false},               // heure 24
+                {"0101236000", false},               // minute 60
+                {"0101235960", false},               // seconde 60
+                {"010100000", false}, {"01010000000", false}, {"01010000a0", false},
+        });
+    }
+
+    @Test
+    void expiryMonthYear() {
+        check(FieldChecks.expiryMonthYear(), new Object[][] {
+                {"0126", true}, {"1299", true}, {"0026", false}, {"1326", false},
+                {"126", false}, {"01265", false}, {"01a6", false},
+        });
+    }
+
+    @Test
+    void track2() {
+        check(FieldChecks.track2(), new Object[][] {
+                {"4007384990155023=0526", true}, {"4007384990155023", true},
+                {"", false}, {"4007384990155023D0526", false}, {"4007384990155023=05 26", false},
+        });
+    }
+
+    @Test
+    void luhnValidMatchesGeneratorCheckDigit() {
+        for (String account : new String[] {"400738499015502", "0", "79927398713", "52047300000000"}) {
+            char[] digits = (account + "0").toCharArray();
+            digits[digits.length - 1] = SyntheticCardGenerator.luhnCheckDigit(digits, digits.length - 1);
+            assertTrue(FieldChecks.luhnValid(new String(digits)), new String(digits));
+        }
+    }
+
+    private static void check(ValidationEngine.FieldCheck check, Object[][] cases) {
+        for (Object[] c : cases) {
+            assertEquals(c[1], check.test((String) c[0]), "valeur \"" + c[0] + "\"");
+        }
+    }
+}
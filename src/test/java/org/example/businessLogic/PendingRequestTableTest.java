@@ -0,0 +1,115 @@
+package org.example.businessLogic;
+
+import org.example.util.PackagerRegistry;
+import org.example.util.TimingWheel;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingRequestTableTest {
+    private final TimingWheel wheel = new TimingWheel("test", 5, 64);
+    private final PendingRequestTable table = new PendingRequestTable(wheel);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void responseCompletesRequestWithSameStanAndReference() throws Exception {
+        CompletableFuture<ISOMsg> future = table.register(PendingRequestTable.keyOf("000042", "629004000042"), 5000);
+        assertEquals(1, table.size());
+
+        // Réponse d'une autre requête : ignorée
+        assertFalse(table.complete(response("000042", "629004000043")));
+        assertFalse(future.isDone());
+
+        ISOMsg response = response("000042", "629004000042");
+        assertTrue(table.complete(response));
+        assertSame(response, future.get(1, TimeUnit.SECONDS));
+        assertEquals(0, table.size());
+        // Réponse en double : plus rien en attente
+        assertFalse(table.complete(response));
+    }
+
+    @Test
+    void keyIgnoresSurroundingSpaces() {
+        assertEquals(PendingRequestTable.keyOf("000042", "629004000042"),
+                PendingRequestTable.keyOf(" 000042", "629004000042 "));
+        assertEquals("/", PendingRequestTable.keyOf(null, null));
+    }
+
+    @Test
+    void failCompletesExceptionallyAndRemovesEntry() {
+        String key = PendingRequestTable.keyOf("000001", "629004000001");
+        CompletableFuture<ISOMsg> future = table.register(key, 5000);
+        IOException cause = new IOException("envoi impossible");
+        table.fail(key, cause);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertSame(cause, e.getCause());
+        assertEquals(0, table.size());
+        // Échec d'une clé inconnue : sans effet
+        table.fail(key, cause);
+    }
+
+    @Test
+    void unansweredRequestTimesOutAndLeavesTable() throws Exception {
+        CompletableFuture<ISOMsg> future = table.register(PendingRequestTable.keyOf("000002", "629004000002"), 50);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof TimeoutException, "cause : " + e.getCause());
+        assertEquals(0, table.size());
+        // Réponse arrivée après l'expiration : tardive
+        assertFalse(table.complete(response("000002", "629004000002")));
+    }
+
+    @Test
+    void answeredRequestDoesNotTimeOutLater() throws Exception {
+        CompletableFuture<ISOMsg> future = table.register(PendingRequestTable.keyOf("000003", "629004000003"), 50);
+        ISOMsg response = response("000003", "629004000003");
+        table.complete(response);
+
+        Thread.sleep(150);
+        assertSame(response, future.get());
+    }
+
+    @Test
+    void keyCollisionIsRejectedWithoutDisturbingFirstRequest() throws Exception {
+        String key = PendingRequestTable.keyOf("000004", "629004000004");
+        CompletableFuture<ISOMsg> first = table.register(key, 5000);
+
+        assertThrows(IllegalStateException.class, () -> table.register(key, 5000));
+        assertEquals(1, table.size());
+        ISOMsg response = response("000004", "629004000004");
+        assertTrue(table.complete(response));
+        assertSame(response, first.get(1, TimeUnit.SECONDS));
+
+        // Clé libérée : de nouveau utilisable
+        table.register(key, 5000);
+        assertEquals(1, table.size());
+    }
+
+    private static ISOMsg response(String stan, String reference) throws ISOException {
+        ISOMsg msg = new ISOMsg();
+        msg.setPackager(PackagerRegistry.iso87());
+        msg.setMTI("0110");
+        msg.set(11, stan);
+        msg.set(37, reference);
+        msg.set(39, "00");
+        return msg;
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.businessLogic;
+
+import org.example.util.CsvParser;
+import org.example.util.SequenceAllocator;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReversalManagerTest {
+    private static AuthRequestTemplate template;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void loadTemplate() throws Exception {
+        try (InputStream in = ReversalManagerTest.class.getResourceAsStream("/auth_template.txt")) {
+            assertNotNull(in, "auth_template.txt absent du classpath");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            reader.readLine(); // en-tête
+            template = new AuthRequestTemplate(CsvParser.parse(reader.readLine()));
+        }
+    }
+
+    @Test
+    void reversalCarriesOriginalDataElementsAndNewStan() throws Exception {
+        ReversalManager reversals = new ReversalManager(ids(), null, "0400");
+        ISOMsg original = template.newRequest("000042", "629004000042");
+
+        ISOMsg reversal = reversals.buildReversal(original);
+        assertEquals("0400", reversal.getMTI());
+        assertEquals("000001", reversal.getString(11));
+        assertNotEquals(original.getString(11), reversal.getString(11));
+        assertEquals("629004000042", reversal.getString(37));
+        assertEquals("68", reversal.getString(39));
+        assertEquals(original.getString(2), reversal.getString(2));
+        assertEquals(original.getString(4), reversal.getString(4));
+        // MTI, STAN, date/heure d'origine, acquéreur (431329 dans le template) et transmetteur (absent),
+        // cadrés à droite sur 11 chiffres
+        assertEquals("431329", original.getString(32));
+        assertFalse(original.hasField(33));
+        assertEquals("0100" + "000042" + original.getString(7) + "00000431329" + "00000000000", reversal.getString(90));
+        for (int field : new int[] {35, 45, 52, 55}) {
+            assertFalse(reversal.hasField(field), "champ " + field + " repris dans l'annulation");
+        }
+        // La demande d'origine reste intacte
+        assertEquals("0100", original.getMTI());
+        assertEquals("000042", original.getString(11));
+    }
+
+    @Test
+    void eachReversalGetsItsOwnStan() throws Exception {
+        ReversalManager reversals = new ReversalManager(ids(), null, "0420");
+        ISOMsg first = reversals.buildReversal(template.newRequest("000042", "629004000042"));
+        ISOMsg second = reversals.buildReversal(template.newRequest("000042", "629004000042"));
+
+        assertEquals("0420", first.getMTI());
+        assertNotEquals(first.getString(11), second.getString(11));
+        assertEquals(first.getString(90), second.getString(90));
+    }
+
+    @Test
+    void fastPathRequestRebuiltForReversal() throws Exception {
+        byte[] packed = new byte[template.getPackedLength()];
+        long second = template.writePacked(packed, 0, 77, 629004000077L);
+        ISOMsg rebuilt = template.sentRequest(77, 629004000077L, second);
+
+        ISOMsg reversal = new ReversalManager(ids(), null, "0400").buildReversal(rebuilt);
+        assertEquals("0100000077" + rebuilt.getString(7), reversal.getString(90).substring(0, 20));
+        assertEquals("629004000077", reversal.getString(37));
+    }
+
+    @Test
+    void rejectsUnknownReversalMti() {
+        assertThrows(IllegalArgumentException.class, () -> new ReversalManager(ids(), null, "0100"));
+    }
+
+    private TransactionIds ids() {
+        return new TransactionIds(new SequenceAllocator("stan", 1, 999_999, 100, dir.resolve("stan.seq")),
+                new SequenceAllocator("rrn", 0, 999_999, 100, dir.resolve("rrn.seq")));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.businessLogic;
+
+import org.example.util.PackagerRegistry;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticCardGeneratorTest {
+    private static final String BINS = "400738:16:70,520473:16:20,37:15:10";
+    private static final String AMOUNTS = "100-5000:50,5000-20000:50";
+    private static final String MCCS = "5411:30,5812:70";
+
+    @Test
+    void generatedCardsHaveValidPanAndMatchingTrack2() throws Exception {
+        SyntheticCardGenerator generator = generator(7, 10_000);
+        for (long sequence = 0; sequence < 2000; sequence++) {
+            ISOMsg request = fill(generator, sequence);
+            String pan = request.getString(2);
+            assertTrue(FieldChecks.luhnValid(pan), "clé de Luhn invalide : " + pan);
+            assertTrue(pan.startsWith("400738") || pan.startsWith("520473") || pan.startsWith("37"), pan);
+            assertEquals(pan.startsWith("37") ? 15 : 16, pan.length(), pan);
+            assertEquals(pan + "=" + request.getString(14) + "101", request.getString(35));
+            long amount = Long.parseLong(request.getString(4));
+            assertTrue(amount >= 100 && amount <= 20000, "montant hors tranches : " + amount);
+            assertTrue(new TransactionValidator().validate(request).isEmpty(), "demande invalide : " + request.getString(2));
+        }
+    }
+
+    @Test
+    void sameSeedAndSequenceGiveSameFields() throws Exception {
+        SyntheticCardGenerator first = generator(42, 1000);
+        SyntheticCardGenerator second = generator(42, 1000);
+        for (long sequence : new long[] {0, 1, 17, 999, 123_456_789}) {
+            ISOMsg a = fill(first, sequence);
+            ISOMsg b = fill(second, sequence);
+            for (int field : new int[] {2, 4, 14, 18, 35, 41, 42}) {
+                assertEquals(a.getString(field), b.getString(field), "champ " + field + ", rang " + sequence);
+            }
+        }
+        // Autre graine : autre population
+        assertTrue(!fill(generator(43, 1000), 0).getString(2).equals(fill(first, 0).getString(2))
+                || !fill(generator(43, 1000), 1).getString(2).equals(fill(first, 1).getString(2)));
+    }
+
+    @Test
+    void distinctCardsHaveDistinctPans() {
+        int cards = 50_000;
+        SyntheticCardGenerator generator = generator(3, cards);
+        Set<String> pans = new HashSet<>();
+        for (long card = 0; card < cards; card++) {
+            pans.add(generator.panOf(card));
+        }
+        assertEquals(cards, pans.size());
+    }
+
+    @Test
+    void terminalsStayWithinField41() throws Exception {
+        SyntheticCardGenerator generator = new SyntheticCardGenerator(1, 100, BINS, AMOUNTS, MCCS, 10, 3, 1.5);
+        for (long sequence = 0; sequence < 500; sequence++) {
+            ISOMsg request = fill(generator, sequence);
+            int terminal = Integer.parseInt(request.getString(41));
+            int merchant = Integer.parseInt(request.getString(42));
+            assertTrue(terminal > (merchant - 1) * 3 && terminal <= merchant * 3,
+                    "terminal " + terminal + " hors du commerçant " + merchant);
+        }
+    }
+
+    @Test
+    void invalidBinsAreRejected() {
+        for (String bins : new String[] {":16:1", "4a:16:1", "400738:12:1", "400738:16:1,4:16:1", "40:16:1,400738:16:1",
+                "400738:16:1,400738:16:1"}) {
+            assertThrows(IllegalArgumentException.class, () -> generator(bins), bins);
+        }
+        // Même préfixe mais longueurs de PAN différentes : pas de PAN commun possible
+        generator("4:16:1,40:19:1");
+    }
+
+    @Test
+    void populationLargerThanBinOrField41IsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SyntheticCardGenerator(1, 1_000_000_001L, "400738:16:1", AMOUNTS, MCCS, 10, 1, 1.5));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SyntheticCardGenerator(1, 100, BINS, AMOUNTS, MCCS, 100_000, 1000, 1.5));
+    }
+
+    private static SyntheticCardGenerator generator(long seed, long cards) {
+        return new SyntheticCardGenerator(seed, cards, BINS, AMOUNTS, MCCS, 5000, 3, 1.5);
+    }
+
+    private static SyntheticCardGenerator generator(String bins) {
+        return new SyntheticCardGenerator(1, 1000, bins, AMOUNTS, MCCS, 10, 1, 1.5);
+    }
+
+    private static ISOMsg fill(SyntheticCardGenerator generator, long sequence) throws Exception {
+        ISOMsg request = new ISOMsg();
+        request.setPackager(PackagerRegistry.iso87());
+        request.setMTI("0100");
+        request.set(3, "000000");
+        request.set(7, "1017120000");
+        request.set(11, "000001");
+        request.set(37, "629004000001");
+        generator.fill(sequence, request);
+        return request;
+    }
+}
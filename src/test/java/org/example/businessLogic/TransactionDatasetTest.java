@@ -0,0 +1,140 @@
+package org.example.businessLogic;
+
+import org.example.util.PackagerRegistry;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionDatasetTest {
+    private static final String[] TEMPLATE_HEADER = {"PAN", "ProcessingCode", "Amount"};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loopRestartsAtFirstRowAfterLastOne() throws Exception {
+        try (TransactionDataset dataset = new TransactionDataset(rows(3), TEMPLATE_HEADER, true, 0, 1)) {
+            List<String> amounts = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                amounts.add(dataset.nextRow()[1]);
+            }
+            assertEquals(List.of("000000000100", "000000000101", "000000000102",
+                    "000000000100", "000000000101", "000000000102", "000000000100"), amounts);
+            assertEquals(7, dataset.getRowsRead());
+        }
+    }
+
+    @Test
+    void withoutLoopFileIsReadOnce() throws Exception {
+        try (TransactionDataset dataset = new TransactionDataset(rows(2), TEMPLATE_HEADER, false, 0, 1)) {
+            assertEquals("000000000100", dataset.nextRow()[1]);
+            assertEquals("000000000101", dataset.nextRow()[1]);
+            assertNull(dataset.nextRow());
+            assertFalse(dataset.fill(2, request()));
+        }
+    }
+
+    @Test
+    void emptyDatasetDoesNotLoopForever() throws Exception {
+        try (TransactionDataset dataset = new TransactionDataset(rows(0), TEMPLATE_HEADER, true, 4, 1)) {
+            assertNull(dataset.nextRow());
+        }
+    }
+
+    @Test
+    void shuffleWindowDrainsEveryRowOnceWithoutLoop() throws Exception {
+        for (int window : new int[] {1, 4, 50}) {
+            try (TransactionDataset dataset = new TransactionDataset(rows(20), TEMPLATE_HEADER, false, window, 42)) {
+                Set<String> amounts = new HashSet<>();
+                List<String> order = new ArrayList<>();
+                String[] row;
+                while ((row = dataset.nextRow()) != null) {
+                    assertTrue(amounts.add(row[1]), "ligne " + row[1] + " tirée deux fois (fenêtre " + window + ")");
+                    order.add(row[1]);
+                }
+                assertEquals(20, amounts.size(), "fenêtre " + window);
+                if (window > 1) {
+                    assertNotEquals(sorted(order), order, "ordre inchangé avec une fenêtre de " + window);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shuffleIsReproducibleForSameSeed() throws Exception {
+        assertEquals(drain(rows(30), 8, 7), drain(rows(30), 8, 7));
+    }
+
+    @Test
+    void fillAppliesNonEmptyColumnsButNeverStanOrReference() throws Exception {
+        Path file = Files.writeString(dir.resolve("ids.csv"),
+                "PAN,Amount,11,37,43\n4970100000000000,,123456,629004999999,\"BOUTIQUE, PARIS\"\n", StandardCharsets.UTF_8);
+        try (TransactionDataset dataset = new TransactionDataset(file, TEMPLATE_HEADER, false, 0, 1)) {
+            ISOMsg request = request();
+            assertTrue(dataset.fill(0, request));
+            assertEquals("4970100000000000", request.getString(2));
+            assertEquals("000000001500", request.getString(4));
+            assertEquals("000001", request.getString(11));
+            assertEquals("629004000001", request.getString(37));
+            assertEquals("BOUTIQUE, PARIS", request.getString(43));
+        }
+    }
+
+    @Test
+    void unknownColumnIsRejected() throws Exception {
+        Path file = Files.writeString(dir.resolve("bad.csv"), "PAN,Inconnue\n1,2\n", StandardCharsets.UTF_8);
+        assertThrows(IllegalArgumentException.class, () -> new TransactionDataset(file, TEMPLATE_HEADER, false, 0, 1));
+    }
+
+    private Path rows(int count) throws IOException {
+        StringBuilder csv = new StringBuilder("PAN,Amount\r\n");
+        for (int i = 0; i < count; i++) {
+            csv.append("49701000000000").append(String.format("%02d", i)).append(',')
+                    .append(String.format("%012d", 100 + i)).append("\r\n");
+        }
+        return Files.writeString(dir.resolve("rows-" + count + ".csv"), csv, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> drain(Path file, int window, long seed) throws IOException {
+        List<String> amounts = new ArrayList<>();
+        try (TransactionDataset dataset = new TransactionDataset(file, TEMPLATE_HEADER, false, window, seed)) {
+            String[] row;
+            while ((row = dataset.nextRow()) != null) {
+                amounts.add(row[1]);
+            }
+        }
+        return amounts;
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values);
+        copy.sort(null);
+        return copy;
+    }
+
+    private static ISOMsg request() throws Exception {
+        ISOMsg msg = new ISOMsg();
+        msg.setPackager(PackagerRegistry.iso87());
+        msg.setMTI("0100");
+        msg.set(4, "000000001500");
+        msg.set(11, "000001");
+        msg.set(37, "629004000001");
+        return msg;
+    }
+}
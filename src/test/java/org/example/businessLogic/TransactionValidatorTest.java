@@ -0,0 +1,78 @@
+package org.example.businessLogic;
+
+import org.example.util.CsvParser;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionValidatorTest {
+    private static AuthRequestTemplate template;
+    private final TransactionValidator validator = new TransactionValidator();
+
+    @BeforeAll
+    static void loadTemplate() throws Exception {
+        try (InputStream in = TransactionValidatorTest.class.getResourceAsStream("/auth_template.txt")) {
+            assertNotNull(in, "auth_template.txt absent du classpath");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            reader.readLine(); // en-tête
+            template = new AuthRequestTemplate(CsvParser.parse(reader.readLine()));
+        }
+    }
+
+    @Test
+    void shippedTemplatePasses() throws Exception {
+        ISOMsg request = template.newRequest("000001", "629004000001");
+        assertEquals(List.of(), validator.validate(request));
+        assertTrue(validator.validateTransaction(request));
+    }
+
+    @Test
+    void everyFailureIsReportedInOnePass() throws Exception {
+        ISOMsg request = template.newRequest("000001", "629004000001");
+        request.set(2, "4007384990155024");  // mauvaise clé de Luhn
+        request.set(7, "1332000000");        // mois 13
+        request.set(14, "0026");             // mois 00
+        request.unset(35);                   // champ obligatoire absent
+        request.set(37, "6290040000011");    // 13 caractères
+
+        List<ValidationEngine.Failure> failures = validator.validate(request);
+        assertEquals(List.of(2, 7, 14, 35, 37), failures.stream().map(f -> f.rule().field()).toList());
+        assertEquals("4007384990155024", failures.get(0).value());
+        assertNull(failures.get(3).value());
+        assertTrue(failures.get(1).toString().startsWith("Champ 7 : "), failures.get(1).toString());
+        assertFalse(validator.validateTransaction(request));
+    }
+
+    @Test
+    void eachRuleRejectsItsOwnField() throws Exception {
+        Object[][] cases = {
+                {2, "422222222222"},          // 12 chiffres
+                {3, "00000"},
+                {4, "1234567890123"},
+                {7, "1017240000"},            // heure 24
+                {11, "1234567"},
+                {14, "1326"},
+                {35, "4007384990155023D0526"},
+                {37, ""},
+        };
+        for (Object[] c : cases) {
+            ISOMsg request = template.newRequest("000001", "629004000001");
+            request.set((Integer) c[0], (String) c[1]);
+            List<ValidationEngine.Failure> failures = validator.validate(request);
+            assertEquals(1, failures.size(), "champ " + c[0] + " = \"" + c[1] + "\" : " + failures);
+            assertEquals(c[0], failures.get(0).rule().field());
+        }
+    }
+}
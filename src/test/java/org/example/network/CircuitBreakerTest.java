@@ -0,0 +1,113 @@
+package org.example.network;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+    private static final long OPEN_MS = 50;
+
+    @Test
+    void opensAfterFailureThresholdConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("FE", 3, OPEN_MS);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void successResetsConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("FE", 3, OPEN_MS);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAfterCoolDownAllowsSingleProbe() throws Exception {
+        CircuitBreaker breaker = open();
+        assertFalse(breaker.tryAcquirePermission());
+
+        Thread.sleep(OPEN_MS + 20);
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        // Essai en cours : aucune autre requête
+        assertFalse(breaker.isCallPermitted());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void probeSuccessCloses() throws Exception {
+        CircuitBreaker breaker = halfOpenWithProbe();
+        breaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void probeFailureReopensForAnotherCoolDown() throws Exception {
+        CircuitBreaker breaker = halfOpenWithProbe();
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        Thread.sleep(OPEN_MS + 20);
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void releasedProbeCanBeTakenAgain() throws Exception {
+        CircuitBreaker breaker = halfOpenWithProbe();
+        breaker.releasePermission();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.isCallPermitted());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void releaseWhileClosedHasNoEffect() {
+        CircuitBreaker breaker = new CircuitBreaker("FE", 1, OPEN_MS);
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.releasePermission();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    void rejectsNonPositiveThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker("FE", 0, OPEN_MS));
+    }
+
+    private static CircuitBreaker open() {
+        CircuitBreaker breaker = new CircuitBreaker("FE", 2, OPEN_MS);
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private static CircuitBreaker halfOpenWithProbe() throws InterruptedException {
+        CircuitBreaker breaker = open();
+        Thread.sleep(OPEN_MS + 20);
+        assertTrue(breaker.tryAcquirePermission());
+        return breaker;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.network;
+
+import org.example.util.PackagerRegistry;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Décodage des trames reçues : la connexion réutilise son tampon de trame, seul le début
+ * annoncé par l'en-tête appartient au message courant.
+ */
+class MessageDispatcherTest {
+    private final FrameCodec codec = FrameCodec.getDefault();
+    private final BlockingQueue<ISOMsg> authorizations = new LinkedBlockingQueue<>();
+    private NioEngine engine;
+    private Socket socket;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = new NioEngine("test-NioEngine");
+        InetSocketAddress address = engine.listen("FE", new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                () -> new MessageDispatcher("FE", (connection, msg) -> { }, authorizations::add, connection -> { }))
+                .get(5, TimeUnit.SECONDS);
+        socket = new Socket(address.getAddress(), address.getPort());
+        socket.setTcpNoDelay(true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        socket.close();
+        engine.shutdown();
+    }
+
+    @Test
+    void truncatedFrameAfterLongerOneIsSkipped() throws Exception {
+        byte[] longResponse = response("000001", "REPONSE LONGUE AVEC DONNEES ADDITIONNELLES AU CHAMP 48").pack();
+        OutputStream out = socket.getOutputStream();
+        out.write(codec.encode(longResponse));
+        // Réponse coupée : sans borne sur la longueur, la fin serait relue dans le tampon de la trame précédente
+        out.write(codec.encode(Arrays.copyOf(longResponse, longResponse.length - 30)));
+        out.write(codec.encode(response("000003", "ok").pack()));
+        out.flush();
+
+        assertEquals("000001", nextAuthorization().getString(11));
+        assertEquals("000003", nextAuthorization().getString(11));
+        assertNull(authorizations.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private ISOMsg nextAuthorization() throws InterruptedException {
+        ISOMsg msg = authorizations.poll(5, TimeUnit.SECONDS);
+        assertNotNull(msg, "réponse attendue non remise");
+        return msg;
+    }
+
+    private static ISOMsg response(String stan, String additionalData) throws ISOException {
+        ISOMsg msg = new ISOMsg();
+        msg.setPackager(PackagerRegistry.iso87());
+        msg.setMTI("0110");
+        msg.set(3, "000000");
+        msg.set(4, "000000001500");
+        msg.set(11, stan);
+        msg.set(37, "612300" + stan);
+        msg.set(39, "00");
+        msg.set(41, "TERM0001");
+        if (additionalData != null) {
+            msg.set(48, additionalData);
+        }
+        return msg;
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.network;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Découpage du flux reçu en trames : une trame peut arriver en plusieurs lectures (en-tête compris),
+ * et une lecture peut contenir plusieurs trames.
+ */
+class NioConnectionTest {
+    private final FrameCodec codec = FrameCodec.getDefault();
+    private final BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>();
+    private final CompletableFuture<NioConnection> accepted = new CompletableFuture<>();
+    private final CompletableFuture<Throwable> lost = new CompletableFuture<>();
+    private NioEngine engine;
+    private Socket socket;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = new NioEngine("test-NioEngine");
+        InetSocketAddress address = engine.listen("TEST", new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                Collector::new).get(5, TimeUnit.SECONDS);
+        socket = new Socket(address.getAddress(), address.getPort());
+        socket.setTcpNoDelay(true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        socket.close();
+        engine.shutdown();
+    }
+
+    @Test
+    void reassemblesFrameSplitAcrossReads() throws Exception {
+        byte[] message = message("0100 découpée", 300);
+        byte[] frame = codec.encode(message);
+        OutputStream out = socket.getOutputStream();
+        // En-tête coupé en deux, puis corps en deux morceaux
+        writeSlowly(out, Arrays.copyOfRange(frame, 0, 1));
+        writeSlowly(out, Arrays.copyOfRange(frame, 1, 150));
+        assertNull(frames.poll(100, TimeUnit.MILLISECONDS), "trame incomplète remise au handler");
+        writeSlowly(out, Arrays.copyOfRange(frame, 150, frame.length));
+
+        assertArrayEquals(message, nextFrame());
+        assertNull(frames.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void splitsCoalescedFrames() throws Exception {
+        byte[][] messages = {message("A", 20), message("B", 1), message("C", 500), message("D", 80)};
+        byte[] stream = concat(codec.encode(messages[0]), codec.encode(messages[1]), codec.encode(messages[2]),
+                codec.encode(messages[3]));
+        // Trois trames entières et le début de la quatrième en une écriture, puis la fin
+        int cut = stream.length - 40;
+        OutputStream out = socket.getOutputStream();
+        writeSlowly(out, Arrays.copyOfRange(stream, 0, cut));
+        writeSlowly(out, Arrays.copyOfRange(stream, cut, stream.length));
+
+        for (byte[] message : messages) {
+            assertArrayEquals(message, nextFrame());
+        }
+        assertNull(frames.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void receivesFrameLargerThanInitialBufferAndManyReads() throws Exception {
+        byte[] message = message("grande", FrameCodec.MAX_FRAME_LENGTH - codec.getHeaderLength() - 8);
+        byte[] frame = codec.encode(message);
+        OutputStream out = socket.getOutputStream();
+        for (int offset = 0; offset < frame.length; offset += 7000) {
+            writeSlowly(out, Arrays.copyOfRange(frame, offset, Math.min(frame.length, offset + 7000)));
+        }
+        assertArrayEquals(message, nextFrame());
+    }
+
+    @Test
+    void invalidLengthClosesConnection() throws Exception {
+        socket.getOutputStream().write(new byte[codec.getHeaderLength()]); // longueur 0
+        socket.getOutputStream().flush();
+
+        Throwable cause = lost.get(5, TimeUnit.SECONDS);
+        assertTrue(cause instanceof IOException, "cause : " + cause);
+        assertTrue(frames.isEmpty());
+    }
+
+    @Test
+    void sentFramesCarryLengthHeader() throws Exception {
+        // Première trame du client : fait connaître la connexion acceptée
+        writeSlowly(socket.getOutputStream(), codec.encode(message("0800", 30)));
+        NioConnection connection = accepted.get(5, TimeUnit.SECONDS);
+        byte[] first = message("réponse", 120);
+        byte[] second = message("echo", 10);
+        assertTrue(connection.send(first));
+        assertTrue(connection.sendFrame(codec.encode(second)));
+
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        socket.setSoTimeout(5000);
+        for (byte[] expected : new byte[][] {first, second}) {
+            byte[] header = new byte[codec.getHeaderLength()];
+            in.readFully(header);
+            byte[] body = new byte[codec.readHeader(header, 0)];
+            in.readFully(body);
+            assertArrayEquals(expected, body);
+        }
+    }
+
+    private byte[] nextFrame() throws InterruptedException {
+        byte[] frame = frames.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame, "trame attendue non reçue");
+        return frame;
+    }
+
+    /**
+     * Écriture suivie d'une courte pause : chaque morceau arrive dans une lecture distincte côté moteur.
+     */
+    private static void writeSlowly(OutputStream out, byte[] chunk) throws IOException, InterruptedException {
+        out.write(chunk);
+        out.flush();
+        Thread.sleep(30);
+    }
+
+    private static byte[] message(String prefix, int length) {
+        byte[] message = new byte[length];
+        byte[] text = prefix.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < length; i++) {
+            message[i] = i < text.length ? text[i] : (byte) ('0' + i % 10);
+        }
+        return message;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] all = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        return all;
+    }
+
+    private final class Collector implements FrameHandler {
+
+        @Override
+        public void onFrame(NioConnection connection, byte[] frame, int length) {
+            accepted.complete(connection);
+            frames.add(Arrays.copyOf(frame, length)); // tampon réutilisé par la connexion
+        }
+
+        @Override
+        public void onClosed(NioConnection connection, Throwable cause) {
+            lost.complete(cause);
+        }
+    }
+}
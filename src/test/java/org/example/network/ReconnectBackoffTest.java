@@ -0,0 +1,56 @@
+package org.example.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReconnectBackoffTest {
+
+    @Test
+    void delaysStayWithinBaseAndCap() {
+        ReconnectBackoff backoff = new ReconnectBackoff(500, 30_000);
+        for (int attempt = 0; attempt <= 100; attempt++) {
+            for (int draw = 0; draw < 200; draw++) {
+                long delay = backoff.delayMillis(attempt);
+                assertTrue(delay >= 500 && delay <= 30_000, "tentative " + attempt + " : " + delay + " ms");
+            }
+        }
+    }
+
+    @Test
+    void delayGrowsExponentiallyWithJitter() {
+        ReconnectBackoff backoff = new ReconnectBackoff(100, 1_000_000);
+        for (int attempt = 1; attempt <= 8; attempt++) {
+            long exponential = 100L << attempt;
+            Set<Long> delays = new HashSet<>();
+            for (int draw = 0; draw < 200; draw++) {
+                long delay = backoff.delayMillis(attempt);
+                assertTrue(delay >= exponential / 2 && delay <= exponential, "tentative " + attempt + " : " + delay + " ms");
+                delays.add(delay);
+            }
+            // Gigue : les sessions d'un même FE ne repartent pas ensemble
+            assertTrue(delays.size() > 10, "tentative " + attempt + " : " + delays.size() + " délai(s) distinct(s)");
+        }
+    }
+
+    @Test
+    void capIsReachedWithoutOverflowOnLateAttempts() {
+        ReconnectBackoff backoff = new ReconnectBackoff(1L << 40, 1L << 41);
+        for (int attempt = 1; attempt <= 1000; attempt *= 10) {
+            long delay = backoff.delayMillis(attempt);
+            assertTrue(delay >= 1L << 40 && delay <= 1L << 41, "tentative " + attempt + " : " + delay + " ms");
+        }
+        assertEquals(1000, new ReconnectBackoff(1000, 1000).delayMillis(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void rejectsInvalidDelays() {
+        assertThrows(IllegalArgumentException.class, () -> new ReconnectBackoff(0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new ReconnectBackoff(1000, 500));
+    }
+}
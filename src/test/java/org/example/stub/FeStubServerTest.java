@@ -0,0 +1,159 @@
+package org.example.stub;
+
+import org.example.network.FrameHandler;
+import org.example.network.NioConnection;
+import org.example.network.NioEngine;
+import org.example.util.PackagerRegistry;
+import org.example.util.WeightedTable;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Le FE simulé répond comme le ferait un FE réel aux messages du client, sur une vraie connexion TCP.
+ */
+class FeStubServerTest {
+    private final BlockingQueue<ISOMsg> responses = new LinkedBlockingQueue<>();
+    private FeStubServer stub;
+    private NioEngine client;
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.shutdown();
+        }
+        if (stub != null) {
+            stub.shutdown();
+        }
+    }
+
+    @Test
+    void answersNetworkAuthorizationAndReversal() throws Exception {
+        NioConnection connection = connect(new FeStubServer(WeightedTable.parse("05:100", code -> code),
+                LatencyDistribution.parse("0"), 0, 0, 0, 1));
+
+        connection.send(networkMessage("001").pack());
+        ISOMsg signOn = nextResponse();
+        assertEquals("0810", signOn.getMTI());
+        assertEquals("00", signOn.getString(39));
+
+        connection.send(authorization("0100", "000042").pack());
+        ISOMsg authorization = nextResponse();
+        assertEquals("0110", authorization.getMTI());
+        assertEquals("05", authorization.getString(39));
+        assertEquals("000042", authorization.getString(11));
+        assertEquals("612300000042", authorization.getString(37));
+        // Piste et PIN ne reviennent jamais dans la réponse
+        assertFalse(authorization.hasField(35));
+        assertFalse(authorization.hasField(52));
+
+        connection.send(authorization("0400", "000043").pack());
+        ISOMsg reversal = nextResponse();
+        assertEquals("0410", reversal.getMTI());
+        assertEquals("00", reversal.getString(39));
+
+        assertTrue(stub.summary().contains("requests=1 approved=0 declined=1"), stub.summary());
+    }
+
+    @Test
+    void unknownNetworkCodeIsDeclined() throws Exception {
+        NioConnection connection = connect(new FeStubServer(WeightedTable.parse("00:100", code -> code),
+                LatencyDistribution.parse("0"), 0, 0, 0, 1));
+
+        connection.send(networkMessage("999").pack());
+        assertEquals("12", nextResponse().getString(39));
+    }
+
+    @Test
+    void droppedAuthorizationGetsNoResponse() throws Exception {
+        NioConnection connection = connect(new FeStubServer(WeightedTable.parse("00:100", code -> code),
+                LatencyDistribution.parse("0"), 0, 1, 0, 1));
+
+        connection.send(authorization("0100", "000044").pack());
+        assertNull(responses.poll(300, TimeUnit.MILLISECONDS));
+        assertTrue(stub.summary().contains("dropped=1"), stub.summary());
+    }
+
+    @Test
+    void injectedLatencyDelaysResponse() throws Exception {
+        NioConnection connection = connect(new FeStubServer(WeightedTable.parse("00:100", code -> code),
+                LatencyDistribution.parse("fixed:200"), 0, 0, 0, 1));
+
+        long start = System.nanoTime();
+        connection.send(authorization("0100", "000045").pack());
+        ISOMsg response = nextResponse();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals("00", response.getString(39));
+        assertEquals(6, response.getString(38).length());
+        assertTrue(elapsedMs >= 190, "réponse reçue après " + elapsedMs + " ms");
+    }
+
+    private NioConnection connect(FeStubServer server) throws Exception {
+        stub = server;
+        InetSocketAddress address = stub.listen("STUB", new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = new NioEngine("test-client-NioEngine");
+        return client.connect("FE", address, new ResponseCollector(), 5000).get(5, TimeUnit.SECONDS);
+    }
+
+    private ISOMsg nextResponse() throws InterruptedException {
+        ISOMsg response = responses.poll(5, TimeUnit.SECONDS);
+        assertNotNull(response, "réponse attendue non reçue");
+        return response;
+    }
+
+    private static ISOMsg networkMessage(String code) throws ISOException {
+        ISOMsg msg = new ISOMsg();
+        msg.setPackager(PackagerRegistry.iso87());
+        msg.setMTI("0800");
+        msg.set(70, code);
+        return msg;
+    }
+
+    private static ISOMsg authorization(String mti, String stan) throws ISOException {
+        ISOMsg msg = new ISOMsg();
+        msg.setPackager(PackagerRegistry.iso87());
+        msg.setMTI(mti);
+        msg.set(2, "4970100000000000");
+        msg.set(3, "000000");
+        msg.set(4, "000000001500");
+        msg.set(11, stan);
+        msg.set(35, "4970100000000000=29122010000000000000");
+        msg.set(37, "6123000" + stan.substring(1));
+        msg.set(41, "TERM0001");
+        msg.set(52, "0123456789ABCDEF");
+        return msg;
+    }
+
+    private final class ResponseCollector implements FrameHandler {
+
+        @Override
+        public void onFrame(NioConnection connection, byte[] frame, int length) {
+            ISOMsg response = new ISOMsg();
+            response.setPackager(PackagerRegistry.iso87());
+            try {
+                response.unpack(Arrays.copyOf(frame, length));
+                responses.add(response);
+            } catch (ISOException e) {
+                throw new IllegalStateException("Réponse du FE simulé illisible", e);
+            }
+        }
+
+        @Override
+        public void onClosed(NioConnection connection, Throwable cause) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvParserTest {
+
+    @Test
+    void splitsPlainFieldsAndKeepsSpacesAndEmptyFields() {
+        assertArrayEquals(new String[] {"a", " b ", "", "c", ""}, CsvParser.parse("a, b ,,c,"));
+        assertArrayEquals(new String[] {""}, CsvParser.parse(""));
+    }
+
+    @Test
+    void quotedFieldKeepsCommasAndDoubledQuotes() {
+        assertArrayEquals(new String[] {"1", "A, B", "dit \"oui\"", "\"", "fin"},
+                CsvParser.parse("1,\"A, B\",\"dit \"\"oui\"\"\",\"\"\"\",fin"));
+        assertArrayEquals(new String[] {"", "x"}, CsvParser.parse("\"\",x"));
+    }
+
+    @Test
+    void quotedFieldKeepsLineBreaks() {
+        assertArrayEquals(new String[] {"ligne 1\r\nligne 2", "b"}, CsvParser.parse("\"ligne 1\r\nligne 2\",b"));
+    }
+
+    @Test
+    void unclosedQuoteIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CsvParser.parse("a,\"b,c"));
+    }
+
+    @Test
+    void templateRowKeepsQuotedFields43And48Whole() throws Exception {
+        String[] header;
+        String[] row;
+        try (InputStream in = CsvParserTest.class.getResourceAsStream("/auth_template.txt")) {
+            assertNotNull(in, "auth_template.txt absent du classpath");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            header = CsvParser.parse(reader.readLine());
+            row = CsvParser.parse(reader.readLine());
+        }
+        assertEquals(header.length, row.length, Arrays.toString(row));
+        // Colonnes des champs 35, 43 et 48 (voir IsoMessageBuilder) : guillemets retirés, espaces conservés
+        assertEquals("4007384990155023=0526", row[15]);
+        assertEquals("APPLE.COM/BILL ITUNES.COM IE", row[19]);
+        assertEquals("212961000200925 00000000", row[20]);
+        assertEquals("& 0000600184! C000026 781 A00100000200015000S202! 0400020", row[24]);
+        assertEquals("REF00000001", row[row.length - 1]);
+    }
+}
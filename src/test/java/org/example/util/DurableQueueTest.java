@@ -0,0 +1,154 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurableQueueTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void unacknowledgedEntriesSurviveRestartInOrder() throws Exception {
+        Path file = dir.resolve("saf.log");
+        long first;
+        long second;
+        long third;
+        DurableQueue queue = new DurableQueue("test", file, 16, Long.MAX_VALUE);
+        try {
+            first = add(queue, "premier");
+            second = add(queue, "deuxième");
+            third = add(queue, "troisième");
+            queue.ack(second);
+        } finally {
+            queue.close();
+        }
+
+        DurableQueue reopened = new DurableQueue("test", file, 16, Long.MAX_VALUE);
+        try {
+            List<DurableQueue.Entry> recovered = reopened.recovered();
+            assertEquals(2, recovered.size());
+            assertEntry(recovered.get(0), first, "premier");
+            assertEntry(recovered.get(1), third, "troisième");
+            assertEquals(2, reopened.pendingCount());
+            // Les identifiants repartent après le plus grand relu : pas de collision avec les éléments repris
+            assertTrue(add(reopened, "quatrième") > third);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void tornTailIsDiscardedAndDoesNotHideLaterRecords() throws Exception {
+        Path file = dir.resolve("saf.log");
+        DurableQueue queue = new DurableQueue("test", file, 16, Long.MAX_VALUE);
+        long first;
+        long second;
+        try {
+            first = add(queue, "premier");
+            second = add(queue, "deuxième");
+        } finally {
+            queue.close();
+        }
+        long intactSize = Files.size(file);
+        // Écriture interrompue : début d'un troisième enregistrement (longueur annoncée, corps absent)
+        byte[] intact = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(intact, 12), StandardOpenOption.APPEND);
+
+        DurableQueue reopened = new DurableQueue("test", file, 16, Long.MAX_VALUE);
+        long third;
+        try {
+            assertEquals(2, reopened.recovered().size());
+            // Fichier réécrit à l'ouverture : la fin tronquée a disparu
+            assertEquals(intactSize, Files.size(file));
+            third = add(reopened, "troisième");
+        } finally {
+            reopened.close();
+        }
+
+        DurableQueue again = new DurableQueue("test", file, 16, Long.MAX_VALUE);
+        try {
+            List<DurableQueue.Entry> recovered = again.recovered();
+            assertEquals(3, recovered.size());
+            assertEntry(recovered.get(0), first, "premier");
+            assertEntry(recovered.get(1), second, "deuxième");
+            assertEntry(recovered.get(2), third, "troisième");
+        } finally {
+            again.close();
+        }
+    }
+
+    @Test
+    void corruptedLastRecordIsIgnored() throws Exception {
+        Path file = dir.resolve("saf.log");
+        DurableQueue queue = new DurableQueue("test", file, 16, Long.MAX_VALUE);
+        long first;
+        try {
+            first = add(queue, "premier");
+            add(queue, "deuxième");
+        } finally {
+            queue.close();
+        }
+        byte[] data = Files.readAllBytes(file);
+        data[data.length - 1] ^= 0x5A; // contenu du dernier enregistrement altéré : CRC invalide
+        Files.write(file, data);
+
+        DurableQueue reopened = new DurableQueue("test", file, 16, Long.MAX_VALUE);
+        try {
+            List<DurableQueue.Entry> recovered = reopened.recovered();
+            assertEquals(1, recovered.size());
+            assertEntry(recovered.get(0), first, "premier");
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void compactionKeepsOnlyPendingEntries() throws Exception {
+        Path file = dir.resolve("saf.log");
+        // Seuil de compactage minuscule : le fichier est réécrit dès que les acquittés y dominent
+        DurableQueue queue = new DurableQueue("test", file, 16, 256);
+        long kept;
+        try {
+            kept = add(queue, "conservé");
+            for (int i = 0; i < 50; i++) {
+                queue.ack(add(queue, "acquitté " + i));
+            }
+            add(queue, "dernier");
+        } finally {
+            queue.close();
+        }
+        // Compacté après chaque lot qui dépasse le seuil : jamais plus de 256 octets au repos
+        assertTrue(Files.size(file) <= 256, "fichier non compacté : " + Files.size(file) + " octets");
+
+        DurableQueue reopened = new DurableQueue("test", file, 16, 256);
+        try {
+            List<DurableQueue.Entry> recovered = reopened.recovered();
+            assertEquals(2, recovered.size());
+            assertEntry(recovered.get(0), kept, "conservé");
+            assertEquals("dernier", new String(recovered.get(1).payload(), StandardCharsets.UTF_8));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static long add(DurableQueue queue, String payload) throws Exception {
+        return queue.add(payload.getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+    }
+
+    private static void assertEntry(DurableQueue.Entry entry, long id, String payload) {
+        assertEquals(id, entry.id());
+        assertArrayEquals(payload.getBytes(StandardCharsets.UTF_8), entry.payload());
+    }
+}
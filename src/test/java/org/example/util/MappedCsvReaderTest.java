@@ -0,0 +1,96 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedCsvReaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void crlfLineEndingsAndBlankLinesAreSkipped() throws Exception {
+        Path file = write("PAN,Amount\r\n\r\n4970100000000000,1500\r\n\n\r\n4970100000000018,2500\r\n\r\n");
+        try (MappedCsvReader reader = new MappedCsvReader(file)) {
+            assertArrayEquals(new String[] {"PAN", "Amount"}, reader.getHeader());
+            assertEquals(List.of("4970100000000000|1500", "4970100000000018|2500"), readAll(reader));
+        }
+    }
+
+    @Test
+    void lastRecordWithoutLineEndIsRead() throws Exception {
+        try (MappedCsvReader reader = new MappedCsvReader(write("a,b\n1,2\n3,4"))) {
+            assertEquals(List.of("1|2", "3|4"), readAll(reader));
+        }
+    }
+
+    @Test
+    void quotedLineBreakStaysInsideRecord() throws Exception {
+        Path file = write("id,43,48\n1,\"BOUTIQUE\nPARIS\",\"a, \"\"b\"\"\"\r\n2,\"X\r\nY\",z\n");
+        try (MappedCsvReader reader = new MappedCsvReader(file)) {
+            assertEquals(List.of("1|BOUTIQUE\nPARIS|a, \"b\"", "2|X\r\nY|z"), readAll(reader));
+        }
+    }
+
+    @Test
+    void recordCrossingMappingWindowIsReadWhole() throws Exception {
+        StringBuilder csv = new StringBuilder("id,texte\n");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String text = "enregistrement " + i + " " + "x".repeat(i % 7);
+            csv.append(i).append(",\"").append(text).append(",\nsuite\"\n");
+            expected.add(i + "|" + text + ",\nsuite");
+        }
+        // Fenêtres de 64 octets : la plupart des enregistrements (30 à 40 octets) sont à cheval sur deux fenêtres
+        try (MappedCsvReader reader = new MappedCsvReader(write(csv.toString()), 64)) {
+            assertEquals(expected, readAll(reader));
+        }
+    }
+
+    @Test
+    void recordLargerThanWindowIsReported() throws Exception {
+        try (MappedCsvReader reader = new MappedCsvReader(write("a\n\"" + "x".repeat(100) + "\"\n"), 32)) {
+            assertThrows(IOException.class, reader::nextRaw);
+        }
+    }
+
+    @Test
+    void rewindRestartsAfterHeader() throws Exception {
+        try (MappedCsvReader reader = new MappedCsvReader(write("a,b\n1,2\n3,4\n"), 8)) {
+            assertEquals(List.of("1|2", "3|4"), readAll(reader));
+            reader.rewind();
+            assertEquals("1|2", String.join("|", MappedCsvReader.parse(reader.nextRaw())));
+        }
+    }
+
+    @Test
+    void emptyFileIsRejected() throws Exception {
+        Path file = write("");
+        assertThrows(IllegalArgumentException.class, () -> new MappedCsvReader(file));
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.write(dir.resolve("data.csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readAll(MappedCsvReader reader) throws IOException {
+        List<String> rows = new ArrayList<>();
+        byte[] record;
+        while ((record = reader.nextRaw()) != null) {
+            rows.add(String.join("|", MappedCsvReader.parse(record)));
+        }
+        assertNull(reader.nextRaw());
+        return rows;
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequenceAllocatorTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void restartResumesAfterReservedBlock() {
+        Path state = dir.resolve("stan.seq");
+        SequenceAllocator stans = new SequenceAllocator("stan", 1, 999_999, 100, state);
+        long last = 0;
+        for (int i = 0; i < 150; i++) {
+            last = stans.next();
+        }
+        assertEquals(150, last);
+
+        // Arrêt brutal au milieu du deuxième bloc : la reprise saute le reste du bloc réservé
+        SequenceAllocator restarted = new SequenceAllocator("stan", 1, 999_999, 100, state);
+        assertEquals(201, restarted.next());
+    }
+
+    @Test
+    void noNumberReusedAcrossRestartsWithConcurrentThreads() throws Exception {
+        Path state = dir.resolve("rrn.seq");
+        Set<Long> issued = new HashSet<>();
+        for (int run = 0; run < 3; run++) {
+            SequenceAllocator rrns = new SequenceAllocator("rrn", 0, 999_999, 64, state);
+            for (long value : drawConcurrently(rrns, 4, 1000)) {
+                assertTrue(issued.add(value), "numéro " + value + " réutilisé au lancement " + run);
+            }
+        }
+        assertEquals(3 * 4 * 1000, issued.size());
+    }
+
+    @Test
+    void wrapsBackToMinAfterMax() {
+        SequenceAllocator stans = new SequenceAllocator("stan", 1, 3, 2, dir.resolve("stan.seq"));
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            values.add(stans.next());
+        }
+        assertEquals(List.of(1L, 2L, 3L, 1L, 2L, 3L, 1L), values);
+    }
+
+    private static List<Long> drawConcurrently(SequenceAllocator allocator, int threads, int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> values = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        values.add(allocator.next());
+                    }
+                    return values;
+                }));
+            }
+            List<Long> all = new ArrayList<>();
+            for (Future<List<Long>> future : futures) {
+                all.addAll(future.get());
+            }
+            return all;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
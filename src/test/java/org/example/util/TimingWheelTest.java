@@ -0,0 +1,97 @@
+package org.example.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    private final TimingWheel wheel = new TimingWheel("test", 5, 8);
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void taskRunsOnWheelThreadAfterDelay() throws Exception {
+        CompletableFuture<String> ran = new CompletableFuture<>();
+        long start = System.nanoTime();
+        wheel.schedule(() -> ran.complete(Thread.currentThread().getName()), 60);
+
+        assertEquals("timing-wheel-test", ran.get(5, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMs >= 55, "exécutée après " + elapsedMs + " ms");
+    }
+
+    @Test
+    void delayLongerThanOneRotationWaitsForItsRound() throws Exception {
+        // 8 alvéoles de 5 ms : un tour fait 40 ms, le délai en demande plusieurs
+        CompletableFuture<Long> ran = new CompletableFuture<>();
+        long start = System.nanoTime();
+        wheel.schedule(() -> ran.complete(System.nanoTime()), 150);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(ran.get(5, TimeUnit.SECONDS) - start);
+        assertTrue(elapsedMs >= 145, "exécutée après " + elapsedMs + " ms");
+    }
+
+    @Test
+    void cancelledTaskNeverRuns() throws Exception {
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        TimingWheel.Timeout cancelled = wheel.schedule(cancelledRuns::incrementAndGet, 30);
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, 80);
+        cancelled.cancel();
+
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertEquals(0, cancelledRuns.get());
+    }
+
+    @Test
+    void failingTaskDoesNotStopWheel() throws Exception {
+        wheel.schedule(() -> {
+            throw new IllegalStateException("échec volontaire");
+        }, 10);
+        CountDownLatch next = new CountDownLatch(1);
+        wheel.schedule(next::countDown, 40);
+
+        assertTrue(next.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void manyTimeoutsAllExpireExceptCancelledOnes() throws Exception {
+        int count = 10_000;
+        CountDownLatch expired = new CountDownLatch(count / 2);
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            TimingWheel.Timeout timeout = wheel.schedule(() -> {
+                runs.incrementAndGet();
+                expired.countDown();
+            }, i % 100);
+            if (i % 2 == 1) {
+                timeout.cancel();
+            }
+        }
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(count / 2, runs.get());
+    }
+
+    @Test
+    void stoppedWheelRunsNothing() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        wheel.stop();
+        wheel.schedule(runs::incrementAndGet, 10);
+        Thread.sleep(100);
+        assertFalse(runs.get() > 0);
+    }
+}